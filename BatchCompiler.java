@@ -0,0 +1,96 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 多文件编译驱动
+ * 用法: java BatchCompiler [-j线程数] [--diagnostics] [--emit-llvm] [--stats[=json]] a.txt b.txt ...
+ * 每个输入文件在线程池中独立编译，输出写在输入文件旁边：
+ * a.txt -> a.symbol.txt / a.error.txt
+ * --diagnostics 只检查错误，只写 a.error.txt（见 Compiler.diagnose）
+ * --emit-llvm 没有错误的文件另外输出 a.ll
+ * --stats 最后输出所有文件汇总的各阶段度量；--stats=json 每个文件输出一行JSON，最后一行是汇总，
+ * 此时标准输出只有JSON：各文件的结果行不打印，编译了多少个文件输出到标准错误
+ */
+public class BatchCompiler {
+    public static void main(String[] args) throws InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean diagnosticsOnly = false;
+        boolean emitLLVM = false;
+        String stats = null;
+        List<String> inputFiles = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("-j")) {
+                threads = Integer.parseInt(arg.substring(2));
+            } else if (arg.equals("--diagnostics")) {
+                diagnosticsOnly = true;
+            } else if (arg.equals("--emit-llvm")) {
+                emitLLVM = true;
+            } else if (arg.equals("--stats")) {
+                stats = "table";
+            } else if (arg.equals("--stats=json")) {
+                stats = "json";
+            } else {
+                inputFiles.add(arg);
+            }
+        }
+        if (inputFiles.isEmpty()) {
+            System.err.println("Usage: java BatchCompiler [-jN] [--diagnostics] [--emit-llvm] [--stats[=json]] <input files...>");
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<CompilationMetrics>> results = new ArrayList<>();
+        boolean diagnose = diagnosticsOnly;
+        boolean measure = stats != null && !diagnosticsOnly;
+        boolean emit = emitLLVM;
+        boolean json = measure && stats.equals("json");
+        for (String inputFile : inputFiles) {
+            String stem = stripExtension(inputFile);
+            results.add(pool.submit(() -> {
+                if (diagnose) {
+                    Compiler.diagnose(inputFile, stem + ".error.txt", 0);
+                    return null;
+                }
+                Compiler.Options options = new Compiler.Options();
+                options.metrics = measure ? new CompilationMetrics(inputFile) : null;
+                options.irFile = emit ? stem + ".ll" : null;
+                options.quiet = json;
+                Compiler.compile(inputFile, stem + ".symbol.txt", stem + ".error.txt", options);
+                return options.metrics;
+            }));
+        }
+        pool.shutdown();
+
+        // 按提交顺序汇报失败的文件，一个文件失败不影响其他文件
+        int failed = 0;
+        CompilationMetrics total = CompilationMetrics.total("total");
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                CompilationMetrics metrics = results.get(i).get();
+                if (metrics != null) {
+                    total.add(metrics);
+                    if (json) {
+                        System.out.println(metrics.toJson());
+                    }
+                }
+            } catch (ExecutionException e) {
+                failed++;
+                System.err.println("Error processing file " + inputFiles.get(i) + ": " + e.getCause().getMessage());
+            }
+        }
+        (json ? System.err : System.out).println("Compiled " + (inputFiles.size() - failed) + "/" + inputFiles.size() + " files.");
+        if (measure) {
+            Compiler.printMetrics(total, stats);
+        }
+    }
+
+    private static String stripExtension(String path) {
+        int dot = path.lastIndexOf('.');
+        int slash = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return dot > slash ? path.substring(0, dot) : path;
+    }
+}
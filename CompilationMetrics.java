@@ -0,0 +1,233 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * 编译过程的度量 (CompilationMetrics)
+ * 每个阶段记录墙钟时间、本线程的CPU时间和分配的字节数（ThreadMXBean），
+ * 以及该阶段处理的对象个数（Token数、语法成分数、符号数、输出行数）和该阶段发现的错误数；
+ * 语法分析阶段另外记录消费的Token数（由 CountingParseListener 在分析时统计）。
+ * 只统计调用线程：大文件并行语法分析时，工作线程的CPU时间和分配量不计入。
+ * JVM 不支持的读数记为-1，表格中显示为 "-"，JSON 中为 null。
+ * 多个文件的度量可以用 add 累加（见 BatchCompiler）。
+ */
+public final class CompilationMetrics {
+    public enum Phase {
+        LEX("lex", "tokens", null),
+        PARSE("parse", "productions", "tokens"),
+        SEMANTIC("semantic", "symbols", null),
+        OUTPUT("output", "lines", null);
+
+        private final String label;
+        private final String unit;          // 该阶段计数的对象
+        private final String secondaryUnit; // 另外计数的对象，没有时为null
+
+        Phase(String label, String unit, String secondaryUnit) {
+            this.label = label;
+            this.unit = unit;
+            this.secondaryUnit = secondaryUnit;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    // HotSpot 的扩展接口才能读取线程分配的字节数
+    private static final com.sun.management.ThreadMXBean ALLOCATION =
+            THREADS instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) THREADS : null;
+
+    private final String name;
+    private int files;
+    private final long[] wallNanos = new long[PHASES.length];
+    private final long[] cpuNanos = new long[PHASES.length];
+    private final long[] allocatedBytes = new long[PHASES.length];
+    private final long[] counts = new long[PHASES.length];
+    private final long[] secondaryCounts = new long[PHASES.length];
+    private final long[] errors = new long[PHASES.length];
+
+    // 当前阶段开始时的读数
+    private long wallStart;
+    private long cpuStart;
+    private long allocatedStart;
+
+    /**
+     * @param name 输入文件名，或汇总时的说明
+     */
+    public CompilationMetrics(String name) {
+        this.name = name;
+        this.files = 1;
+    }
+
+    public static CompilationMetrics total(String name) {
+        CompilationMetrics total = new CompilationMetrics(name);
+        total.files = 0;
+        return total;
+    }
+
+    public void begin(Phase phase) {
+        wallStart = System.nanoTime();
+        cpuStart = cpuTime();
+        allocatedStart = allocatedBytes();
+    }
+
+    public void end(Phase phase) {
+        int i = phase.ordinal();
+        wallNanos[i] += System.nanoTime() - wallStart;
+        cpuNanos[i] = elapsed(cpuNanos[i], cpuStart, cpuTime());
+        allocatedBytes[i] = elapsed(allocatedBytes[i], allocatedStart, allocatedBytes());
+    }
+
+    /**
+     * 记录阶段处理的对象个数和发现的错误数
+     */
+    public void record(Phase phase, long count, long errorCount) {
+        counts[phase.ordinal()] += count;
+        errors[phase.ordinal()] += errorCount;
+    }
+
+    /**
+     * 记录阶段另外计数的对象个数（见 Phase 的 secondaryUnit，如语法分析消费的Token数）
+     */
+    public void recordSecondary(Phase phase, long count) {
+        secondaryCounts[phase.ordinal()] += count;
+    }
+
+    public void add(CompilationMetrics other) {
+        files += other.files;
+        for (int i = 0; i < PHASES.length; i++) {
+            wallNanos[i] += other.wallNanos[i];
+            cpuNanos[i] = sum(cpuNanos[i], other.cpuNanos[i]);
+            allocatedBytes[i] = sum(allocatedBytes[i], other.allocatedBytes[i]);
+            counts[i] += other.counts[i];
+            secondaryCounts[i] += other.secondaryCounts[i];
+            errors[i] += other.errors[i];
+        }
+    }
+
+    public long getWallNanos(Phase phase) {
+        return wallNanos[phase.ordinal()];
+    }
+
+    public long getCpuNanos(Phase phase) {
+        return cpuNanos[phase.ordinal()];
+    }
+
+    public long getAllocatedBytes(Phase phase) {
+        return allocatedBytes[phase.ordinal()];
+    }
+
+    public long getCount(Phase phase) {
+        return counts[phase.ordinal()];
+    }
+
+    public long getSecondaryCount(Phase phase) {
+        return secondaryCounts[phase.ordinal()];
+    }
+
+    public long getErrors(Phase phase) {
+        return errors[phase.ordinal()];
+    }
+
+    // ----- 输出 -----
+
+    public void printTable(PrintStream out) {
+        out.println("== " + name + (files == 1 ? "" : " (" + files + " files)") + " ==");
+        out.println(String.format(Locale.ROOT, "%-10s %10s %10s %12s %32s %7s",
+                "phase", "wall ms", "cpu ms", "alloc KB", "count", "errors"));
+        long wall = 0, cpu = 0, allocated = 0, errorTotal = 0;
+        for (Phase phase : PHASES) {
+            int i = phase.ordinal();
+            String count = counts[i] + " " + phase.unit;
+            if (phase.secondaryUnit != null) {
+                count += ", " + secondaryCounts[i] + " " + phase.secondaryUnit;
+            }
+            out.println(String.format(Locale.ROOT, "%-10s %10s %10s %12s %32s %7d",
+                    phase.label, millis(wallNanos[i]), millis(cpuNanos[i]), kilobytes(allocatedBytes[i]),
+                    count, errors[i]));
+            wall += wallNanos[i];
+            cpu = sum(cpu, cpuNanos[i]);
+            allocated = sum(allocated, allocatedBytes[i]);
+            errorTotal += errors[i];
+        }
+        out.println(String.format(Locale.ROOT, "%-10s %10s %10s %12s %32s %7d",
+                "total", millis(wall), millis(cpu), kilobytes(allocated), "", errorTotal));
+    }
+
+    /**
+     * 一行JSON，每个文件一行便于逐行处理
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"name\":\"").append(escape(name)).append("\",\"files\":").append(files).append(",\"phases\":{");
+        for (Phase phase : PHASES) {
+            int i = phase.ordinal();
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('"').append(phase.label).append("\":{")
+                    .append("\"wallNanos\":").append(wallNanos[i])
+                    .append(",\"cpuNanos\":").append(orNull(cpuNanos[i]))
+                    .append(",\"allocatedBytes\":").append(orNull(allocatedBytes[i]))
+                    .append(",\"").append(phase.unit).append("\":").append(counts[i]);
+            if (phase.secondaryUnit != null) {
+                json.append(",\"").append(phase.secondaryUnit).append("\":").append(secondaryCounts[i]);
+            }
+            json.append(",\"errors\":").append(errors[i])
+                    .append('}');
+        }
+        return json.append("}}").toString();
+    }
+
+    // ----- 读数 -----
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedBytes() {
+        if (ALLOCATION == null || !ALLOCATION.isThreadAllocatedMemorySupported()
+                || !ALLOCATION.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return ALLOCATION.getCurrentThreadAllocatedBytes();
+    }
+
+    // 累加一段读数的差，任一读数不可用时结果为-1
+    private static long elapsed(long total, long start, long end) {
+        if (start < 0 || end < 0) {
+            return -1;
+        }
+        return sum(total, end - start);
+    }
+
+    private static long sum(long a, long b) {
+        return a < 0 || b < 0 ? -1 : a + b;
+    }
+
+    private static String millis(long nanos) {
+        return nanos < 0 ? "-" : String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String kilobytes(long bytes) {
+        return bytes < 0 ? "-" : String.format(Locale.ROOT, "%.1f", bytes / 1024.0);
+    }
+
+    private static String orNull(long value) {
+        return value < 0 ? "null" : String.valueOf(value);
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -1,146 +1,398 @@
+import ast.Declaration;
 import ast.Node;
 import ast.topLevelNodes.CompUnit;
+import ast.topLevelNodes.mainFuncDef;
+import codegen.LLVMIRGenerator;
+import codegen.ir.IRPrinter;
+import codegen.ir.Module;
 import error.CompilerError;
+import error.ErrorSink;
 import frontend.Lexer;
+import frontend.NamePool;
+import frontend.SourceFile;
 import error.LexerError;
-import frontend.Token;
+import frontend.TokenBuffer;
+import frontend.TokenStream;
 import frontend.TokenType;
 import error.SyntaxError;
+import parser.CountingParseListener;
+import parser.IncrementalParser;
+import parser.ParallelParser;
+import parser.ParseListener;
 import parser.Parser;
+import parser.TraceParseListener;
 import symbol.Symbol;
+import visitor.SemanticCache;
 import visitor.SemanticVisitor;
 
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
 
 // 为了方便存储Token信息，我们创建一个简单的记录类（Record）
 // Java 16+
 public class Compiler {
+    // 不小于这个大小的源文件先完整词法分析，再按函数并行语法分析
+    private static final long PARALLEL_PARSE_THRESHOLD = 4 << 20;
+    // 监视模式检查输入文件是否修改的间隔
+    private static final long WATCH_INTERVAL_MILLIS = 200;
+
+    /**
+     * 用法: java Compiler [--diagnostics[=最多输出的错误条数]] [--emit-llvm] [--trace] [--stats[=json]] [--watch]
+     * --diagnostics 只检查错误（评测/持续集成用），只写 error.txt
+     * --emit-llvm 没有错误时另外输出 LLVM IR 到 llvm_ir.txt
+     * --trace 没有错误时另外输出语法分析过程到 parser.txt（见 TraceParseListener）
+     * --stats 编译后输出各阶段的时间、分配量和计数（见 CompilationMetrics），
+     * --stats=json 输出一行JSON，此时不打印编译结果的提示行，标准输出可以直接交给JSON的使用方
+     * --watch 不退出，testfile.txt 每次修改后增量地重新编译（见 watch），忽略其他选项
+     */
     public static void main(String[] args) {
         // --- 文件路径定义 ---
         String inputFile = "testfile.txt";
         String outputFile = "symbol.txt";
         String errorFile = "error.txt";
+        Options options = new Options();
 
-        // --- 核心数据结构 ---
-        List<CompilerError> allErrors = new ArrayList<>();
-        List<Token> tokens;
+        int maxErrors = -1; // 不小于0时只检查错误
+        String stats = null; // "table" 或 "json"
+        boolean watch = false;
+        for (String arg : args) {
+            if (arg.equals("--watch")) {
+                watch = true;
+            } else if (arg.equals("--diagnostics")) {
+                maxErrors = 0;
+            } else if (arg.startsWith("--diagnostics=")) {
+                maxErrors = Integer.parseInt(arg.substring("--diagnostics=".length()));
+            } else if (arg.equals("--emit-llvm")) {
+                options.irFile = "llvm_ir.txt";
+            } else if (arg.equals("--trace")) {
+                options.traceFile = "parser.txt";
+            } else if (arg.equals("--stats")) {
+                stats = "table";
+            } else if (arg.equals("--stats=json")) {
+                stats = "json";
+            }
+        }
 
-        CompUnit compUnit = null;
         try {
-            // --- 读取源代码 ---
-            String sourceCode = new String(Files.readAllBytes(Paths.get(inputFile)), StandardCharsets.UTF_8);
+            if (watch) {
+                watch(inputFile, outputFile, errorFile, WATCH_INTERVAL_MILLIS);
+                return;
+            }
+            if (maxErrors >= 0) {
+                diagnose(inputFile, errorFile, maxErrors);
+                return;
+            }
+            if (stats != null) {
+                options.metrics = new CompilationMetrics(inputFile);
+                options.quiet = stats.equals("json");
+            }
+            compile(inputFile, outputFile, errorFile, options);
+            if (options.metrics != null) {
+                printMetrics(options.metrics, stats);
+            }
+        } catch (IOException e) {
+            System.err.println("Error processing file: " + e.getMessage());
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            // ===================================
-            //         1. 词法分析阶段
-            // ===================================
-            Lexer lexer = Lexer.getInstance();
-            lexer.init(sourceCode);
-            tokens = new ArrayList<>();
+    /**
+     * 编译一个源文件。所有状态（词法分析器、语法分析器、符号表）都属于这一次编译，
+     * 因此可以在多个线程中同时编译不同的文件（见 BatchCompiler）。
+     */
+    public static void compile(String inputFile, String outputFile, String errorFile) throws IOException {
+        compile(inputFile, outputFile, errorFile, new Options());
+    }
 
-            while (true) {
-                lexer.next(); // 分析下一个Token
-                TokenType type = lexer.getTokenType();
+    /**
+     * @param metrics 不为null时记录各阶段的度量。为了分别计时，词法分析先完整读入全部Token，
+     *                再进行语法分析（与大文件的方式相同），输出的结果不变
+     */
+    public static void compile(String inputFile, String outputFile, String errorFile,
+                               CompilationMetrics metrics) throws IOException {
+        Options options = new Options();
+        options.metrics = metrics;
+        compile(inputFile, outputFile, errorFile, options);
+    }
 
-                // 将所有分析出的Token（包括ERROR类型）都存起来，供语法分析使用
-                tokens.add(new Token(type, lexer.getToken(), lexer.getLineNum()));
+    /**
+     * 一次编译的可选项，默认只写 symbol.txt / error.txt 并在标准输出打印一行结果
+     */
+    static final class Options {
+        CompilationMetrics metrics; // 不为null时记录各阶段的度量
+        String irFile;              // 不为null时，没有错误的程序另外输出 LLVM IR（计入输出阶段）
+        String traceFile;           // 不为null时，没有错误的程序另外输出语法分析过程（parser.txt 的格式）
+        boolean quiet;              // 不打印编译结果的提示行（--stats=json 时标准输出只有JSON）
+    }
 
-                if (type == TokenType.EOF) {
-                    break; // 到达文件末尾
-                }
+    static void compile(String inputFile, String outputFile, String errorFile, Options options) throws IOException {
+        CompilationMetrics metrics = options.metrics;
+        // --- 核心数据结构 ---
+        // 错误按行号插入，相邻的重复错误在插入时去掉
+        ErrorSink allErrors = new ErrorSink();
+
+        CompUnit compUnit = null;
+        // --- 读取源代码 ---
+        // 直接使用文件的UTF-8字节（大文件为内存映射），不先解码成字符串
+        ByteBuffer source = SourceFile.map(Paths.get(inputFile));
+
+        // ===================================
+        //      1+2. 词法分析 + 语法分析阶段
+        // ===================================
+        NamePool names = new NamePool(); // 词法分析与符号表共用，符号表直接用标识符的编号查找
+        Lexer lexer = new Lexer(source, names);
+        List<SyntaxError> syntaxErrors;
+        // 输出 parser.txt 时记录语法分析过程；并行语法分析不支持监听器，此时总是顺序分析
+        TraceParseListener trace = options.traceFile == null ? null : new TraceParseListener();
+        ParseListener listener = trace == null ? ParseListener.NONE : trace;
+        boolean parallel = trace == null && source.limit() >= PARALLEL_PARSE_THRESHOLD;
+        if (metrics != null || parallel) {
+            if (metrics != null) metrics.begin(CompilationMetrics.Phase.LEX);
+            TokenBuffer buffer = TokenBuffer.readAll(lexer);
+            if (metrics != null) {
+                metrics.end(CompilationMetrics.Phase.LEX);
+                metrics.record(CompilationMetrics.Phase.LEX, buffer.size(), lexer.getErrors().size());
+                metrics.begin(CompilationMetrics.Phase.PARSE);
             }
+            // 统计语法分析消费的终结符和归约的语法成分，不必在分析后再遍历一次语法树
+            CountingParseListener counts = metrics == null ? null : new CountingParseListener();
+            if (parallel) {
+                // 大文件：先顺序读入全部Token，再由多个语法分析器并行分析各个函数
+                ParallelParser parser = new ParallelParser(buffer, counts);
+                compUnit = parser.parse();
+                syntaxErrors = parser.getErrors();
+            } else {
+                Parser parser = new Parser(new TokenStream(buffer),
+                        counts == null ? listener : ParseListener.both(listener, counts));
+                compUnit = parser.parse();
+                syntaxErrors = parser.getErrors();
+            }
+            if (metrics != null) {
+                metrics.end(CompilationMetrics.Phase.PARSE);
+                metrics.record(CompilationMetrics.Phase.PARSE, counts.getComponentCount(), syntaxErrors.size());
+                metrics.recordSecondary(CompilationMetrics.Phase.PARSE, counts.getTokenCount());
+            }
+        } else {
+            // 语法分析器通过TokenStream按需拉取Token，词法分析与语法分析交替进行，
+            // 不再预先把整个文件的Token读进列表。
+            TokenStream tokens = new TokenStream(lexer);
 
-            // 收集词法阶段发现的错误
-            allErrors.addAll(lexer.getErrors());
+            // 不输出 parser.txt 时语法分析器使用默认的空监听器，不为分析过程的输出付出代价；
+            // --trace 时使用 TraceParseListener，确认没有错误后再写出。
+            Parser parser = new Parser(tokens, listener);
+            compUnit = parser.parse();// 启动语法分析过程,并拿到语法树根节点
 
+            // main之后若还有内容，语法分析不会读到，但仍需词法分析以收集词法错误
+            tokens.drain();
+            syntaxErrors = parser.getErrors();
+        }
 
-            // ===================================
-            //         2. 语法分析阶段
-            // ===================================
+        // 收集词法阶段发现的错误
+        allErrors.addAll(lexer.getErrors());
+        // 收集语法阶段发现的错误
+        allErrors.addAll(syntaxErrors);
+        //语义分析
+        if (metrics != null) metrics.begin(CompilationMetrics.Phase.SEMANTIC);
+        SemanticVisitor semanticVisitor = new SemanticVisitor(names);
+        semanticVisitor.analyze(compUnit);
+        if (metrics != null) {
+            metrics.end(CompilationMetrics.Phase.SEMANTIC);
+            metrics.record(CompilationMetrics.Phase.SEMANTIC, semanticVisitor.getAllSymbols().size(),
+                    semanticVisitor.getErrors().size());
+        }
 
-            // 使用 StringWriter 来缓存正确的输出。
-            // 这样，如果最后发现了任何错误，我们就可以不输出 parser.txt，只输出 error.txt。
-            StringWriter stringWriter = new StringWriter();
-            try (PrintWriter parserOutputWriter = new PrintWriter(stringWriter)) {
+        allErrors.addAll(semanticVisitor.getErrors());
 
-                Parser parser = new Parser(tokens, parserOutputWriter);
-                compUnit = parser.parse();// 启动语法分析过程,并拿到语法树根节点
 
-                // 收集语法阶段发现的错误
-                allErrors.addAll(parser.getErrors());
+        // ===================================
+        //         3. 决策与输出阶段
+        // ===================================
+
+        if (metrics != null) metrics.begin(CompilationMetrics.Phase.OUTPUT);
+        long outputLines;
+        if (!allErrors.isEmpty()) {
+            // 如果总错误列表非空，则只输出到 error.txt
+            // 错误已经按行号排好并去重
+            try (PrintWriter errorWriter = new PrintWriter(errorFile, StandardCharsets.UTF_8)) {
+                allErrors.writeTo(errorWriter);
+            }
+            outputLines = allErrors.size();
+            if (!options.quiet) {
+                System.out.println("Errors found during compilation. Output written to " + errorFile);
             }
-            //语义分析
-            SemanticVisitor semanticVisitor = new SemanticVisitor();
-            semanticVisitor.analyze(compUnit);
 
-            allErrors.addAll(semanticVisitor.getErrors());
+        } else {
+            // 如果没有任何错误，输出符号表；--trace 时另外将缓存的正确分析过程输出到 parser.txt
+            outputLines = writeSymbols(semanticVisitor.getAllSymbols(), outputFile);
+            if (trace != null) {
+                try (PrintWriter traceWriter = new PrintWriter(options.traceFile, StandardCharsets.UTF_8)) {
+                    trace.writeTo(traceWriter);
+                }
+            }
+            if (options.irFile != null) {
+                writeIR(compUnit, semanticVisitor, options.irFile);
+            }
+            if (!options.quiet) {
+                System.out.println("Compilation successful. Output written to " + outputFile);
+            }
+        }
+        if (metrics != null) {
+            metrics.end(CompilationMetrics.Phase.OUTPUT);
+            metrics.record(CompilationMetrics.Phase.OUTPUT, outputLines, 0);
+        }
+    }
 
+    /**
+     * 只检查错误（评测/持续集成用）。
+     * 语法分析每得到一个顶层声明就立即做语义分析，之后丢弃它的语法树，不保留整棵树和符号列表；
+     * 常量表达式不建立节点（见 Parser.setDiagnosticsOnly）。
+     * 各阶段的错误随分析进度汇入 ErrorSink，不再最后排序。
+     *
+     * @param maxErrors 最多输出的错误条数（按输出顺序的前若干条），0表示不限
+     * @return 是否有错误；有错误时写出 errorFile，没有错误时不写任何文件
+     */
+    public static boolean diagnose(String inputFile, String errorFile, int maxErrors) throws IOException {
+        ByteBuffer source = SourceFile.map(Paths.get(inputFile));
+        NamePool names = new NamePool();
+        Lexer lexer = new Lexer(source, names);
+        TokenStream tokens = new TokenStream(lexer);
+        Parser parser = new Parser(tokens);
+        parser.setDiagnosticsOnly(true);
+        SemanticVisitor semanticVisitor = SemanticVisitor.forDiagnostics(names);
+        ErrorSink errors = new ErrorSink(maxErrors);
 
-            // ===================================
-            //         3. 决策与输出阶段
-            // ===================================
+        semanticVisitor.beginCompUnit();
+        while (tokens.peek(0) != TokenType.EOF) {
+            Declaration declaration = parser.parseTopLevelItem();
+            if (declaration != null) {
+                semanticVisitor.visit(declaration);
+            }
+            drainErrors(lexer.getErrors(), errors);
+            drainErrors(parser.getErrors(), errors);
+            drainErrors(semanticVisitor.getErrors(), errors);
+            if (declaration instanceof mainFuncDef) {
+                break;
+            }
+        }
+        semanticVisitor.endCompUnit();
+        // main之后若还有内容，仍需词法分析以收集词法错误
+        tokens.drain();
+        drainErrors(lexer.getErrors(), errors);
 
-            if (!allErrors.isEmpty()) {
-                // 如果总错误列表非空，则只输出到 error.txt
+        if (errors.isEmpty()) {
+            return false;
+        }
+        try (PrintWriter errorWriter = new PrintWriter(errorFile, StandardCharsets.UTF_8)) {
+            errors.writeTo(errorWriter);
+        }
+        return true;
+    }
 
-                // **关键步骤：对所有收集到的错误按行号排序**
-                Collections.sort(allErrors);
+    /**
+     * 监视模式（开发时使用）：先编译一次，之后每隔 intervalMillis 检查输入文件，修改时间或大小变化就重新编译，直到被中断。
+     * 语法分析使用 IncrementalParser，只重新分析被修改的顶层成分；语义分析使用 SemanticCache，
+     * 复用未受影响的顶层声明的结果。每次的输出与 compile 相同（symbol.txt 或 error.txt）。
+     * 源程序每次完整读入内存而不做内存映射，编辑器改写文件时不会影响正在进行的分析。
+     */
+    static void watch(String inputFile, String outputFile, String errorFile, long intervalMillis)
+            throws IOException, InterruptedException {
+        Path path = Paths.get(inputFile);
+        IncrementalParser parser = new IncrementalParser();
+        SemanticCache cache = new SemanticCache();
+        FileTime lastModified = null;
+        long lastSize = -1;
+        while (true) {
+            FileTime modified;
+            long size;
+            byte[] source;
+            try {
+                modified = Files.getLastModifiedTime(path);
+                size = Files.size(path);
+                if (modified.equals(lastModified) && size == lastSize) {
+                    Thread.sleep(intervalMillis);
+                    continue;
+                }
+                source = Files.readAllBytes(path);
+            } catch (NoSuchFileException e) {
+                // 编辑器保存时可能先删除再重建文件
+                Thread.sleep(intervalMillis);
+                continue;
+            }
+            lastModified = modified;
+            lastSize = size;
 
+            long start = System.nanoTime();
+            CompUnit compUnit = parser.update(ByteBuffer.wrap(source));
+            ErrorSink allErrors = new ErrorSink();
+            allErrors.addAll(parser.getErrors());
+            SemanticVisitor semanticVisitor = new SemanticVisitor(parser.getNames(), cache);
+            semanticVisitor.analyze(compUnit);
+            allErrors.addAll(semanticVisitor.getErrors());
+            if (!allErrors.isEmpty()) {
                 try (PrintWriter errorWriter = new PrintWriter(errorFile, StandardCharsets.UTF_8)) {
-//                    for (CompilerError error : allErrors) {
-//                        errorWriter.println(error);
-//                    }
-                    for(int i = 0;i < allErrors.size();i++) {
-                        CompilerError compilerError = allErrors.get(i);
-                        if (i < allErrors.size()-1 && compilerError.equals(allErrors.get(i+1))){
-                            continue;
-                        }
-                        errorWriter.println(compilerError);
-                    }
+                    allErrors.writeTo(errorWriter);
                 }
-                System.out.println("Errors found during compilation. Output written to " + errorFile);
-
             } else {
-                // 如果没有任何错误，则将缓存的正确分析过程输出到 parser.txt
-
-                try (PrintWriter outputWriter = new PrintWriter(outputFile, StandardCharsets.UTF_8)) {
-                    //outputWriter.print(stringWriter.toString());
-                    //按顺序输出符号表中字段
-//                    semanticVisitor.getAllSymbols().forEach(symbol -> {
-//                        outputWriter.println(symbol.toString());
-//                    });
-                    List<Symbol> allSymbols = semanticVisitor.getAllSymbols();
-//                    for (Symbol symbol : allSymbols) {
-//                        if (symbol.getName().equals("main") || symbol.getName().equals("getint")) {
-//                            continue;
-//                        }
-//
-//                        outputWriter.println(symbol.toString());
-//                    }
-                    for(int i = 0; i < allSymbols.size(); i++) {
-                        Symbol symbol = allSymbols.get(i);
-                        if (symbol.getName().equals("main") || symbol.getName().equals("getint")) {
-                            continue;
-                        }
-//                        if (i < allSymbols.size()-1 && symbol.getName().equals(allSymbols.get(i+1).getName())) {//去重
-//                            continue;
-//                        }
-                        outputWriter.println(symbol.toString());
-                    }
+                writeSymbols(semanticVisitor.getAllSymbols(), outputFile);
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println((allErrors.isEmpty() ? "Compilation successful. Output written to " + outputFile
+                    : allErrors.size() + " errors. Output written to " + errorFile)
+                    + " (" + millis + " ms, reparsed " + parser.getReparsedCount() + "/"
+                    + compUnit.getDeclarations().size() + " top-level items, reused "
+                    + cache.getReusedCount() + " semantic results)");
+        }
+    }
+
+    // 按加入顺序写出符号表，main 和 getint 不输出；返回写出的行数
+    private static long writeSymbols(List<Symbol> allSymbols, String outputFile) throws IOException {
+        long outputLines = 0;
+        try (PrintWriter outputWriter = new PrintWriter(outputFile, StandardCharsets.UTF_8)) {
+            for (Symbol symbol : allSymbols) {
+                if (symbol.getName().equals("main") || symbol.getName().equals("getint")) {
+                    continue;
                 }
-                System.out.println("Compilation successful. Output written to " + outputFile);
+                outputWriter.println(symbol.toString());
+                outputLines++;
             }
+        }
+        return outputLines;
+    }
 
-        } catch (IOException e) {
-            System.err.println("Error processing file: " + e.getMessage());
-            e.printStackTrace();
+    // 对分析过的语法树单独生成IR，经 FileChannel 流式写出，不先拼成字符串
+    private static void writeIR(CompUnit compUnit, SemanticVisitor semanticVisitor, String irFile) throws IOException {
+        Module module = new LLVMIRGenerator(semanticVisitor.getConstEvaluator()).generate(compUnit);
+        try (FileChannel channel = FileChannel.open(Paths.get(irFile), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            IRPrinter.print(module, channel);
+        }
+    }
+
+    static void printMetrics(CompilationMetrics metrics, String format) {
+        if (format.equals("json")) {
+            System.out.println(metrics.toJson());
+        } else {
+            metrics.printTable(System.out);
+        }
+    }
+
+    // 把已产生的错误移入sink，清空原列表，使各阶段的错误列表不随源程序增长
+    private static void drainErrors(List<? extends CompilerError> from, ErrorSink to) {
+        if (!from.isEmpty()) {
+            to.addAll(from);
+            from.clear();
         }
     }
 }
\ No newline at end of file
@@ -4,4 +4,7 @@ package ast;
 // 所有表达式节点的抽象基类
 public abstract class Expression extends Node {
     public Expression(int lineNum) { super(lineNum); }
-}
\ No newline at end of file
+
+    // 双分派：回调 visitor 中与本节点类型对应的 visit，返回它的结果
+    public abstract <R> R accept(ExpressionVisitor<R> visitor);
+}
@@ -0,0 +1,14 @@
+package ast;
+
+import ast.expressionNodes.*;
+
+// ast/ExpressionVisitor.java
+// 表达式的访问者：Expression.accept 按节点的实际类型回调对应的 visit 并返回结果，
+// R 是每个遍历自己的结果类型（IR 的值、常量值、表达式类型……）
+public interface ExpressionVisitor<R> {
+    R visit(BinaryExp node);
+    R visit(UnaryExp node);
+    R visit(LVal node);
+    R visit(FuncCall node);
+    R visit(NumberLiteral node);
+}
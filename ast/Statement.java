@@ -4,4 +4,7 @@ package ast;
 // 所有语句节点的抽象基类
 public abstract class Statement extends Node {
     public Statement(int lineNum) { super(lineNum); }
-}
\ No newline at end of file
+
+    // 双分派：回调 visitor 中与本节点类型对应的 visit
+    public abstract void accept(StatementVisitor visitor);
+}
@@ -0,0 +1,24 @@
+package ast;
+
+import ast.declarationNodes.VarDecl;
+import ast.statementNodes.*;
+import ast.topLevelNodes.FuncDef;
+import ast.topLevelNodes.mainFuncDef;
+
+// ast/StatementVisitor.java
+// 语句（含声明）的访问者：Statement.accept 按节点的实际类型回调对应的 visit，
+// 每个节点一次虚调用，不需要逐个 instanceof 测试
+public interface StatementVisitor {
+    void visit(VarDecl node);
+    void visit(FuncDef node);
+    void visit(mainFuncDef node);
+    void visit(Block node, boolean isFunc); // 作为语句出现的块 isFunc 为 false
+    void visit(AssignStmt node);
+    void visit(IfStmt node);
+    void visit(ForStmt node);
+    void visit(ReturnStmt node);
+    void visit(BreakStmt node);
+    void visit(ContinueStmt node);
+    void visit(PrintfStmt node);
+    void visit(ExpStmt node);
+}
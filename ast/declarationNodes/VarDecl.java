@@ -2,6 +2,7 @@ package ast.declarationNodes;// ast/VarDecl.java
 import ast.Declaration;
 import frontend.Token;
 import ast.Statement;
+import ast.StatementVisitor;
 import java.util.List;
 
 /**
@@ -23,5 +24,8 @@ public class VarDecl extends Declaration { // 也可作为Declaration, 在语义
         this.varDefs = varDefs;
     }
 
-
+    @Override
+    public void accept(StatementVisitor visitor) {
+        visitor.visit(this);
+    }
 }
\ No newline at end of file
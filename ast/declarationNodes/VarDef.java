@@ -3,6 +3,7 @@ import frontend.Token;
 import ast.Expression;
 
 import ast.Node;
+import symbol.ValueSymbol;
 import java.util.List;
 
 /**
@@ -16,6 +17,9 @@ public class VarDef extends Node {
     public Expression indexExp;//如果是数组，则为数组的索引表达式，为 null 则为普通变量
     public final InitVal initialValue;        // 初始化值，可以为 null
 
+    // 语义分析时建立的符号，后续阶段直接读取；重定义（没有加入符号表）时为null
+    private ValueSymbol symbol;
+
     public VarDef(Token ident,Expression indexExp,InitVal initialValue) {
         super(ident.lineNum());
         this.ident = ident;
@@ -23,4 +27,12 @@ public class VarDef extends Node {
         this.indexExp = indexExp;
         this.initialValue = initialValue;
     }
+
+    public ValueSymbol getSymbol() {
+        return symbol;
+    }
+
+    public void bind(ValueSymbol symbol) {
+        this.symbol = symbol;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package ast.expressionNodes;// ast/BinaryExp.java
 import ast.Expression;
+import ast.ExpressionVisitor;
 import frontend.Token;
 
 /**
@@ -17,4 +18,9 @@ public class BinaryExp extends Expression {
         this.op = op;
         this.right = right;
     }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package ast.expressionNodes;// ast/FuncCall.java
 import ast.Expression;
+import ast.ExpressionVisitor;
 import frontend.Token;
+import symbol.Symbol;
+import symbol.types.SymbolType;
 import java.util.List;
 
 /**
@@ -10,9 +13,31 @@ public class FuncCall extends Expression {
     public final Token ident;
     public final List<Expression> args; // 实参列表
 
+    // 语义分析时解析出的符号和调用表达式的类型，后续阶段直接读取，不再查符号表
+    private Symbol symbol;          // 未定义时为null，同名的变量也照原样保存
+    private SymbolType type;        // 返回值类型 INT 或 VOID，未定义时为null
+
     public FuncCall(Token ident, List<Expression> args) {
         super(ident.lineNum());
         this.ident = ident;
         this.args = args;
     }
+
+    public Symbol getSymbol() {
+        return symbol;
+    }
+
+    public SymbolType getType() {
+        return type;
+    }
+
+    public void bind(Symbol symbol, SymbolType type) {
+        this.symbol = symbol;
+        this.type = type;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
 }
\ No newline at end of file
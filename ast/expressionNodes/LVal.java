@@ -1,6 +1,9 @@
 package ast.expressionNodes;// ast/LVal.java
 import ast.Expression;
+import ast.ExpressionVisitor;
 import frontend.Token;
+import symbol.Symbol;
+import symbol.types.SymbolType;
 import java.util.List;
 
 /**
@@ -11,9 +14,31 @@ public class LVal extends Expression {
     public final Token ident;
     public final Expression exp; // 数组访问的索引，可以为空
 
+    // 语义分析时解析出的符号和这个表达式的类型，后续阶段直接读取，不再查符号表
+    private Symbol symbol;          // 未定义时为null
+    private SymbolType type;        // 未定义或不是变量时为null
+
     public LVal(Token ident, Expression exp) {
         super(ident.lineNum());
         this.ident = ident;
         this.exp = exp;
     }
+
+    public Symbol getSymbol() {
+        return symbol;
+    }
+
+    public SymbolType getType() {
+        return type;
+    }
+
+    public void bind(Symbol symbol, SymbolType type) {
+        this.symbol = symbol;
+        this.type = type;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package ast.expressionNodes;// ast/NumberLiteral.java
 import ast.Expression;
+import ast.ExpressionVisitor;
 import frontend.Token;
 
 /**
@@ -16,4 +17,9 @@ public class NumberLiteral extends Expression {
     public int getValue() {
         return Integer.parseInt(number.value());
     }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
 }
\ No newline at end of file
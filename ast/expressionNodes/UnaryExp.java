@@ -1,5 +1,6 @@
 package ast.expressionNodes;// ast/UnaryExp.java
 import ast.Expression;
+import ast.ExpressionVisitor;
 import frontend.Token;
 
 /**
@@ -15,4 +16,9 @@ public class UnaryExp extends Expression {
         this.op = op;
         this.operand = operand;
     }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
 }
\ No newline at end of file
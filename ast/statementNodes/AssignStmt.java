@@ -1,6 +1,7 @@
 package ast.statementNodes;
 import ast.Expression;
 import ast.Statement;
+import ast.StatementVisitor;
 import ast.expressionNodes.LVal;
 
 public class AssignStmt extends Statement {
@@ -11,4 +12,9 @@ public class AssignStmt extends Statement {
         this.lval = lval;
         this.value = value;
     }
+
+    @Override
+    public void accept(StatementVisitor visitor) {
+        visitor.visit(this);
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package ast.statementNodes;// ast/Block.java
 
 import ast.Node;
 import ast.Statement;
+import ast.StatementVisitor;
 import frontend.Token;
 
 import java.util.ArrayList;
@@ -40,4 +41,9 @@ public class Block extends Statement {
         }
         return returnStmts;
     }
+
+    @Override
+    public void accept(StatementVisitor visitor) {
+        visitor.visit(this, false);
+    }
 }
\ No newline at end of file
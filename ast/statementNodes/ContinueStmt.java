@@ -1,7 +1,13 @@
 package ast.statementNodes;
 import ast.Statement;
+import ast.StatementVisitor;
 
 // ast/ContinueStmt.java
 public class ContinueStmt extends Statement {
     public ContinueStmt(int lineNum) { super(lineNum); }
+
+    @Override
+    public void accept(StatementVisitor visitor) {
+        visitor.visit(this);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package ast.statementNodes;
 import ast.Expression;
 import ast.Statement;
+import ast.StatementVisitor;
 
 
 // ast/ExpStmt.java (用于 [Exp]; 或空语句 ;)
@@ -10,4 +11,9 @@ public class ExpStmt extends Statement {
         super(lineNum);
         this.expression = expression;
     }
+
+    @Override
+    public void accept(StatementVisitor visitor) {
+        visitor.visit(this);
+    }
 }
\ No newline at end of file
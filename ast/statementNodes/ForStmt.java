@@ -1,6 +1,7 @@
 package ast.statementNodes;
 import ast.Expression;
 import ast.Statement;
+import ast.StatementVisitor;
 
 import java.util.List;
 
@@ -21,4 +22,9 @@ public class ForStmt extends Statement {
         this.update = update;
         this.body = body;
     }
+
+    @Override
+    public void accept(StatementVisitor visitor) {
+        visitor.visit(this);
+    }
 }
\ No newline at end of file
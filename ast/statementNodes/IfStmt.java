@@ -1,6 +1,7 @@
 package ast.statementNodes;
 import ast.Expression;
 import ast.Statement;
+import ast.StatementVisitor;
 
 
 // ast/IfStmt.java
@@ -14,4 +15,9 @@ public class IfStmt extends Statement {
         this.thenBranch = thenBranch;
         this.elseBranch = elseBranch;
     }
+
+    @Override
+    public void accept(StatementVisitor visitor) {
+        visitor.visit(this);
+    }
 }
\ No newline at end of file
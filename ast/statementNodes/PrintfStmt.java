@@ -1,6 +1,7 @@
 package ast.statementNodes;// ast/PrintfStmt.java
 import ast.Expression;
 import ast.Statement;
+import ast.StatementVisitor;
 import frontend.Token;
 import java.util.List;
 public class PrintfStmt extends Statement {
@@ -11,4 +12,9 @@ public class PrintfStmt extends Statement {
         this.formatString = formatString;
         this.args = args;
     }
+
+    @Override
+    public void accept(StatementVisitor visitor) {
+        visitor.visit(this);
+    }
 }
\ No newline at end of file
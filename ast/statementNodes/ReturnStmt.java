@@ -3,6 +3,7 @@ package ast.statementNodes;
 
 import ast.Expression;
 import ast.Statement;
+import ast.StatementVisitor;
 
 // ast/ReturnStmt.java
 public class ReturnStmt extends Statement {
@@ -11,4 +12,9 @@ public class ReturnStmt extends Statement {
         super(lineNum);
         this.returnValue = returnValue;
     }
+
+    @Override
+    public void accept(StatementVisitor visitor) {
+        visitor.visit(this);
+    }
 }
\ No newline at end of file
@@ -12,13 +12,32 @@ import java.util.List;
 public class CompUnit extends Node {
     // 将全局声明、函数定义、主函数都视为顶层 "声明"
     private final List<Declaration> declarations;
+    // 增量分析时记录的每个顶层声明的源程序范围，与declarations一一对应；普通分析时为null
+    private final List<SourceSpan> spans;
 
     public CompUnit(List<Declaration> declarations) {
+        this(declarations, null);
+    }
+
+    public CompUnit(List<Declaration> declarations, List<SourceSpan> spans) {
         super(declarations.isEmpty() ? 0 : declarations.get(0).getLineNum());
         this.declarations = declarations;
+        this.spans = spans;
     }
 
     public List<Declaration> getDeclarations() {
         return declarations;
     }
+
+    public List<SourceSpan> getSpans() {
+        return spans;
+    }
+
+    /**
+     * 第index个顶层声明的行号修正量：它的子树被增量分析复用时，
+     * 语法树中记录的行号加上这个值才是实际行号
+     */
+    public int getLineShift(int index) {
+        return spans == null ? 0 : spans.get(index).lineShift;
+    }
 }
@@ -1,9 +1,11 @@
 package ast.topLevelNodes;// ast/FuncDef.java
 import ast.Declaration;
 import ast.Statement;
+import ast.StatementVisitor;
 import ast.statementNodes.Block;
 import ast.statementNodes.ReturnStmt;
 import frontend.Token;
+import symbol.FuncSymbol;
 import symbol.ValueSymbol;
 
 import java.util.ArrayList;
@@ -20,6 +22,8 @@ public class FuncDef extends Declaration {
     public final List<FuncParam> params; // 形参列表, 可以为空
     public final Block body;     // 函数体
 
+    private FuncSymbol symbol;   // 语义分析时建立的函数符号
+
     public FuncDef(Token funcType, Token ident, List<FuncParam> params, Block body) {
         super(funcType.lineNum());
         this.funcType = funcType;
@@ -38,6 +42,14 @@ public class FuncDef extends Declaration {
         return body.getReturnStatement();
     }
 
+    public FuncSymbol getSymbol() {
+        return symbol;
+    }
+
+    public void bind(FuncSymbol symbol) {
+        this.symbol = symbol;
+    }
+
     public List<FuncParam> getParams() {
         return params;
     }
@@ -52,4 +64,9 @@ public class FuncDef extends Declaration {
         }
         return symbols;
     }
+
+    @Override
+    public void accept(StatementVisitor visitor) {
+        visitor.visit(this);
+    }
 }
\ No newline at end of file
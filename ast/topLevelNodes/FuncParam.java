@@ -3,6 +3,7 @@ import ast.Node;
 import ast.declarationNodes.VarDecl;
 import frontend.Token;
 import symbol.ValueSymbol;
+import symbol.types.SymbolType;
 
 /**
  * 对应文法: FuncFParam → BType Ident ['[' ']']
@@ -12,6 +13,8 @@ public class FuncParam extends Node {
     public final Token ident;
     public final boolean isArray; // 是否是数组类型 (a[])
 
+    private ValueSymbol symbol;   // 语义分析时建立的形参符号
+
     public FuncParam(Token bType, Token ident, boolean isArray) {
         super(bType.lineNum());
         this.bType = bType;
@@ -19,11 +22,19 @@ public class FuncParam extends Node {
         this.isArray = isArray;
     }
 
+    public ValueSymbol getSymbol() {
+        return symbol;
+    }
+
+    public void bind(ValueSymbol symbol) {
+        this.symbol = symbol;
+    }
+
     public ValueSymbol toValueSymbol(int scopeId) {
         if (isArray) {
-            return new ValueSymbol(ident.value(), "IntArray", scopeId);
+            return new ValueSymbol(ident.value(), SymbolType.INT_ARRAY, scopeId);
         } else {
-            return new ValueSymbol(ident.value(), "Int", scopeId);
+            return new ValueSymbol(ident.value(), SymbolType.INT, scopeId);
         }
 
     }
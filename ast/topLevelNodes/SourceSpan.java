@@ -0,0 +1,47 @@
+package ast.topLevelNodes;
+
+/**
+ * 一个顶层成分（全局声明、函数定义、主函数）在源程序中的范围，由增量分析记录。
+ * 范围以字节下标表示；行号以语法树中记录的行号为准，
+ * 成分被原样复用而前面的行数发生变化时，实际行号 = 语法树中的行号 + lineShift。
+ */
+public class SourceSpan {
+    public final int start;        // 第一个token的起始字节下标
+    public final int end;          // 最后一个token之后的字节下标
+    public final int firstLine;    // 第一个token的行号（语法树中的行号）
+    public final int lastLine;     // 最后一个token的行号（语法树中的行号）
+    public final int lineShift;    // 实际行号与语法树中行号之差
+    public final long tokenHash;   // 范围内token序列（类型、相对行号、单词值）的哈希
+
+    public SourceSpan(int start, int end, int firstLine, int lastLine, int lineShift, long tokenHash) {
+        this.start = start;
+        this.end = end;
+        this.firstLine = firstLine;
+        this.lastLine = lastLine;
+        this.lineShift = lineShift;
+        this.tokenHash = tokenHash;
+    }
+
+    /**
+     * 源程序在本范围之前插入/删除内容后，本范围移动到的新位置
+     * @param offsetDelta 字节下标的变化量
+     * @param lineDelta 行号的变化量
+     */
+    public SourceSpan shifted(int offsetDelta, int lineDelta) {
+        if (offsetDelta == 0 && lineDelta == 0) {
+            return this;
+        }
+        return new SourceSpan(start + offsetDelta, end + offsetDelta, firstLine, lastLine,
+                lineShift + lineDelta, tokenHash);
+    }
+
+    // 第一个token的实际行号
+    public int actualFirstLine() {
+        return firstLine + lineShift;
+    }
+
+    // 最后一个token的实际行号
+    public int actualLastLine() {
+        return lastLine + lineShift;
+    }
+}
@@ -1,13 +1,31 @@
 package ast.topLevelNodes;
 
 import ast.Declaration;
+import ast.StatementVisitor;
 import ast.statementNodes.Block;
+import symbol.FuncSymbol;
 
 //lineNum为main的行数
 public class mainFuncDef extends Declaration {
     public final Block body;
+
+    private FuncSymbol symbol; // 语义分析时建立的函数符号
+
     public mainFuncDef(int lineNum, Block body) {
         super(lineNum);
         this.body = body;
     }
+
+    public FuncSymbol getSymbol() {
+        return symbol;
+    }
+
+    public void bind(FuncSymbol symbol) {
+        this.symbol = symbol;
+    }
+
+    @Override
+    public void accept(StatementVisitor visitor) {
+        visitor.visit(this);
+    }
 }
@@ -0,0 +1,77 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端编译：与 Compiler.main 相同的流程（读文件、三个阶段、写 symbol.txt / error.txt），
+ * 输入输出是临时目录中的文件。
+ * Compiler 在默认包中，不能从有名字的包直接引用，通过 MethodHandle 调用。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompilerBenchmark {
+
+    @State(Scope.Thread)
+    public static class Workspace {
+        Path directory;
+        String input;
+        String symbolFile;
+        String errorFile;
+        MethodHandle compile;
+        MethodHandle diagnose;
+        private PrintStream stdout;
+
+        @Setup(Level.Trial)
+        public void prepare(ProgramState program) throws Exception {
+            directory = Files.createTempDirectory("sysy-bench");
+            Path source = directory.resolve("testfile.txt");
+            Files.write(source, program.source);
+            input = source.toString();
+            symbolFile = directory.resolve("symbol.txt").toString();
+            errorFile = directory.resolve("error.txt").toString();
+
+            Class<?> compiler = Class.forName("Compiler");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            compile = lookup.findStatic(compiler, "compile",
+                    MethodType.methodType(void.class, String.class, String.class, String.class));
+            diagnose = lookup.findStatic(compiler, "diagnose",
+                    MethodType.methodType(boolean.class, String.class, String.class, int.class));
+
+            // 编译器每次都在标准输出打印一行结果，测量时丢弃
+            stdout = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @TearDown(Level.Trial)
+        public void cleanUp() throws Exception {
+            System.setOut(stdout);
+            for (String file : new String[]{input, symbolFile, errorFile}) {
+                Files.deleteIfExists(Path.of(file));
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Benchmark
+    public void compile(Workspace files) throws Throwable {
+        files.compile.invokeExact(files.input, files.symbolFile, files.errorFile);
+    }
+
+    // 只检查错误（--diagnostics）
+    @Benchmark
+    public boolean diagnose(Workspace files) throws Throwable {
+        return (boolean) files.diagnose.invokeExact(files.input, files.errorFile, 0);
+    }
+}
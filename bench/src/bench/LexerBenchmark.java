@@ -0,0 +1,52 @@
+package bench;
+
+import frontend.Lexer;
+import frontend.NamePool;
+import frontend.TokenBuffer;
+import frontend.TokenType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 词法分析的吞吐量：tokens 计数器换算为每秒的Token数
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Tokens {
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+        }
+    }
+
+    // 只调用 Lexer.next，不保存Token
+    @Benchmark
+    public int next(ProgramState program, Tokens counter) {
+        Lexer lexer = new Lexer(program.buffer(), new NamePool());
+        int count = 0;
+        do {
+            lexer.next();
+            count++;
+        } while (lexer.getTokenType() != TokenType.EOF);
+        counter.tokens += count;
+        return count;
+    }
+
+    // 读入完整的Token表（大文件并行语法分析之前的步骤）
+    @Benchmark
+    public TokenBuffer readAll(ProgramState program, Tokens counter) {
+        TokenBuffer buffer = TokenBuffer.readAll(new Lexer(program.buffer(), new NamePool()));
+        counter.tokens += program.tokenCount;
+        return buffer;
+    }
+}
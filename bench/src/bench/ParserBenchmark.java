@@ -0,0 +1,59 @@
+package bench;
+
+import ast.topLevelNodes.CompUnit;
+import frontend.Lexer;
+import frontend.NamePool;
+import frontend.TokenBuffer;
+import frontend.TokenStream;
+import org.openjdk.jmh.annotations.*;
+import parser.Parser;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语法分析的吞吐量：nodes 计数器换算为每秒建立的语法树节点数
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Tokens {
+        TokenBuffer buffer;
+
+        @Setup(Level.Trial)
+        public void lex(ProgramState program) {
+            buffer = program.tokens();
+        }
+    }
+
+    // 编译器的默认方式：语法分析按需从词法分析器拉取Token，两者交替进行
+    @Benchmark
+    public CompUnit parse(ProgramState program, Nodes counter) {
+        CompUnit unit = new Parser(new TokenStream(new Lexer(program.buffer(), new NamePool()))).parse();
+        counter.nodes += program.nodeCount;
+        return unit;
+    }
+
+    // 只测语法分析：在预先读入的Token表上分析
+    @Benchmark
+    public CompUnit parseTokens(ProgramState program, Tokens tokens, Nodes counter) {
+        CompUnit unit = new Parser(new TokenStream(tokens.buffer)).parse();
+        counter.nodes += program.nodeCount;
+        return unit;
+    }
+}
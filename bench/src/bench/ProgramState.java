@@ -0,0 +1,60 @@
+package bench;
+
+import ast.topLevelNodes.CompUnit;
+import bench.flat.FlatAstBuilder;
+import frontend.Lexer;
+import frontend.NamePool;
+import frontend.TokenBuffer;
+import frontend.TokenStream;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import parser.Parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 各个基准测试共用的输入程序：按参数生成一次，整个测试中不变。
+ * 同时记录程序的Token数和语法树节点数，用于把每次调用换算成 tokens/s、nodes/s。
+ */
+@State(Scope.Benchmark)
+public class ProgramState {
+    @Param({"10", "100", "1000"})
+    public int functions;
+
+    @Param({"4"})
+    public int depth;
+
+    @Param({"8"})
+    public int exprSize;
+
+    @Param({"4"})
+    public int arrays;
+
+    public byte[] source;
+    public int tokenCount; // 含EOF
+    public int nodeCount;  // 不含根节点
+
+    @Setup(Level.Trial)
+    public void generate() {
+        source = SysYProgramGenerator.generate(functions, depth, exprSize, arrays).getBytes(StandardCharsets.UTF_8);
+        tokenCount = tokens().size();
+        NamePool names = new NamePool();
+        CompUnit unit = new Parser(new TokenStream(new Lexer(buffer(), names))).parse();
+        nodeCount = FlatAstBuilder.build(unit, names).size() - 1;
+    }
+
+    public ByteBuffer buffer() {
+        return ByteBuffer.wrap(source);
+    }
+
+    /**
+     * 完整读入的Token表，可以反复在上面语法分析
+     */
+    public TokenBuffer tokens() {
+        return TokenBuffer.readAll(new Lexer(buffer(), new NamePool()));
+    }
+}
@@ -0,0 +1,57 @@
+package bench;
+
+import ast.topLevelNodes.CompUnit;
+import codegen.LLVMIRGenerator;
+import codegen.ir.Module;
+import frontend.Lexer;
+import frontend.NamePool;
+import frontend.TokenStream;
+import org.openjdk.jmh.annotations.*;
+import parser.Parser;
+import visitor.SemanticVisitor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语义分析：在同一棵语法树上反复分析（分析结果绑定在节点上，每次分析都会覆盖）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SemanticBenchmark {
+
+    @State(Scope.Thread)
+    public static class Parsed {
+        NamePool names;
+        CompUnit unit;
+
+        @Setup(Level.Trial)
+        public void parse(ProgramState program) {
+            names = new NamePool();
+            unit = new Parser(new TokenStream(new Lexer(program.buffer(), names))).parse();
+        }
+    }
+
+    @Benchmark
+    public SemanticVisitor analyze(Parsed parsed) {
+        SemanticVisitor visitor = new SemanticVisitor(parsed.names);
+        visitor.analyze(parsed.unit);
+        return visitor;
+    }
+
+    // 检查的同时生成IR
+    @Benchmark
+    public Module analyzeAndGenerate(Parsed parsed) {
+        return new SemanticVisitor(parsed.names).analyzeAndGenerate(parsed.unit);
+    }
+
+    // 先分析、再单独遍历一次生成IR，与融合模式对照
+    @Benchmark
+    public Module analyzeThenGenerate(Parsed parsed) {
+        SemanticVisitor visitor = new SemanticVisitor(parsed.names);
+        visitor.analyze(parsed.unit);
+        return new LLVMIRGenerator(visitor.getConstEvaluator()).generate(parsed.unit);
+    }
+}
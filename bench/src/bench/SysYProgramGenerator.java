@@ -0,0 +1,219 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * 合成 SysY 测试程序的生成器 (SysYProgramGenerator)
+ * 生成没有词法、语法、语义错误的程序，规模由四个参数控制：
+ * - functions  函数个数（不含 main），后面的函数调用前面的函数，没有递归；
+ * - depth      函数体内 if / for 嵌套的层数；
+ * - exprSize   每个表达式的操作数个数；
+ * - arrays     全局数组、常量数组的个数。
+ * 相同的参数和种子总是生成相同的程序，不同次运行的测量结果可以直接比较。
+ * 数组下标都是非负常量或取模后的循环变量，除数都是非零常量，程序在语义上是合法的；
+ * 但调用次数随函数个数指数增长，函数较多的程序只适合测量编译，不适合运行。
+ *
+ * 用法: java bench.SysYProgramGenerator 函数个数 嵌套层数 表达式大小 数组个数 [输出文件]
+ */
+public final class SysYProgramGenerator {
+    private static final int ARRAY_LENGTH = 16;
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "%"};
+
+    private final int functions;
+    private final int depth;
+    private final int exprSize;
+    private final int arrays;
+    private final Random random;
+    private final StringBuilder out = new StringBuilder();
+    private int currentFunction; // 正在生成的函数，只能调用编号更小的函数
+    private int indent;
+
+    public SysYProgramGenerator(int functions, int depth, int exprSize, int arrays, long seed) {
+        this.functions = functions;
+        this.depth = depth;
+        this.exprSize = Math.max(1, exprSize);
+        this.arrays = Math.max(1, arrays);
+        this.random = new Random(seed);
+    }
+
+    public static String generate(int functions, int depth, int exprSize, int arrays) {
+        return new SysYProgramGenerator(functions, depth, exprSize, arrays, 42).generate();
+    }
+
+    public String generate() {
+        out.setLength(0);
+        for (int i = 0; i < arrays; i++) {
+            line("const int C" + i + "[" + ARRAY_LENGTH + "] = {" + constants() + "};");
+            line("int g" + i + "[" + ARRAY_LENGTH + "];");
+        }
+        line("int counter = 0;");
+        line("");
+        for (int f = 0; f < functions; f++) {
+            currentFunction = f;
+            function(f);
+        }
+        currentFunction = functions;
+        mainFunction();
+        return out.toString();
+    }
+
+    // ----- 声明 -----
+
+    private void function(int f) {
+        line("int f" + f + "(int a, int b[]) {");
+        indent++;
+        line("int x = a;");
+        line("int i = 0;");
+        line("int t[" + ARRAY_LENGTH + "] = {" + constants() + "};");
+        statements(depth);
+        line("return x;");
+        indent--;
+        line("}");
+        line("");
+    }
+
+    private void mainFunction() {
+        line("int main() {");
+        indent++;
+        line("int a = getint();");
+        line("int x = 0;");
+        line("int i;");
+        line("int t[" + ARRAY_LENGTH + "];");
+        line("int b[" + ARRAY_LENGTH + "];");
+        line("for (i = 0; i < " + ARRAY_LENGTH + "; i = i + 1) {");
+        indent++;
+        line("b[i] = i * a;");
+        line("t[i] = " + ARRAY_LENGTH + " - i;");
+        indent--;
+        line("}");
+        for (int f = 0; f < functions; f++) {
+            line("x = x + f" + f + "(a + " + f + ", b);");
+        }
+        line("printf(\"%d %d\\n\", x, counter);");
+        line("return 0;");
+        indent--;
+        line("}");
+    }
+
+    // ----- 语句 -----
+
+    private void statements(int level) {
+        line("x = " + expression(exprSize) + ";");
+        line(array("t") + " = " + expression(exprSize) + ";");
+        if (level == 0) {
+            line("counter = counter + 1;");
+            return;
+        }
+        if (random.nextBoolean()) {
+            line("if (" + condition() + ") {");
+            block(level);
+            line("} else {");
+            indent++;
+            line("x = x - " + expression(exprSize) + ";");
+            indent--;
+            line("}");
+        } else {
+            // 每层循环用自己的循环变量，内层循环不会改变外层的循环次数
+            String j = "j" + level;
+            line("int " + j + ";");
+            line("for (" + j + " = 0; " + j + " < " + (2 + random.nextInt(3)) + "; " + j + " = " + j + " + 1) {");
+            block(level);
+            line("}");
+        }
+    }
+
+    private void block(int level) {
+        indent++;
+        line("int y" + level + " = " + expression(exprSize) + ";");
+        line("x = x + y" + level + ";");
+        statements(level - 1);
+        if (random.nextInt(4) == 0) {
+            line("printf(\"%d\\n\", x);");
+        }
+        indent--;
+    }
+
+    // ----- 表达式 -----
+
+    private String condition() {
+        String relation = random.nextBoolean() ? " > " : " != ";
+        return expression(Math.max(1, exprSize / 2)) + relation + random.nextInt(100)
+                + " && x < " + (1000 + random.nextInt(1000)) + " || !a";
+    }
+
+    // 有size个操作数的表达式
+    private String expression(int size) {
+        if (size <= 1) {
+            return operand();
+        }
+        int left = 1 + random.nextInt(size - 1);
+        String op = OPERATORS[random.nextInt(OPERATORS.length)];
+        if (op.equals("/") || op.equals("%")) {
+            // 除数用非零常量，不会除以0
+            return "(" + expression(size - 1) + ") " + op + " " + (1 + random.nextInt(9));
+        }
+        return "(" + expression(left) + " " + op + " " + expression(size - left) + ")";
+    }
+
+    private String operand() {
+        switch (random.nextInt(7)) {
+            case 0:
+                return String.valueOf(random.nextInt(1000));
+            case 1:
+                return "a";
+            case 2:
+                return "x";
+            case 3:
+                return array("b");
+            case 4:
+                return array(random.nextBoolean() ? "C" + random.nextInt(arrays) : "g" + random.nextInt(arrays));
+            case 5:
+                if (currentFunction > 0) {
+                    return "f" + random.nextInt(currentFunction) + "(" + random.nextInt(10) + ", t)";
+                }
+                return "-" + random.nextInt(100);
+            default:
+                return "t[" + random.nextInt(ARRAY_LENGTH) + "]";
+        }
+    }
+
+    private String array(String name) {
+        return name + (random.nextBoolean() ? "[" + random.nextInt(ARRAY_LENGTH) + "]" : "[i % " + ARRAY_LENGTH + "]");
+    }
+
+    private String constants() {
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < ARRAY_LENGTH; i++) {
+            if (i > 0) {
+                values.append(", ");
+            }
+            values.append(random.nextInt(100));
+        }
+        return values.toString();
+    }
+
+    private void line(String text) {
+        for (int i = 0; i < indent; i++) {
+            out.append("    ");
+        }
+        out.append(text).append('\n');
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: java bench.SysYProgramGenerator <functions> <depth> <exprSize> <arrays> [output]");
+            return;
+        }
+        String program = generate(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        if (args.length > 4) {
+            Files.write(Paths.get(args[4]), program.getBytes(StandardCharsets.UTF_8));
+        } else {
+            System.out.print(program);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package bench;
+
+import ast.Declaration;
+import ast.Expression;
+import ast.ExpressionVisitor;
+import ast.Statement;
+import ast.StatementVisitor;
+import ast.declarationNodes.InitVal;
+import ast.declarationNodes.VarDecl;
+import ast.declarationNodes.VarDef;
+import ast.expressionNodes.*;
+import ast.statementNodes.*;
+import ast.topLevelNodes.CompUnit;
+import ast.topLevelNodes.FuncDef;
+import ast.topLevelNodes.mainFuncDef;
+import bench.flat.FlatAst;
+import bench.flat.FlatAstBuilder;
+import bench.flat.FlatAstVisitor;
+import frontend.Lexer;
+import frontend.NamePool;
+import frontend.TokenStream;
+import org.openjdk.jmh.annotations.*;
+import parser.Parser;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 遍历整棵语法树的开销，不做任何分析，只数节点：
+ * - accept：Statement / Expression 的 accept 双分派（SemanticVisitor 的方式）；
+ * - instanceOf：逐个 instanceof 测试再强制转换（改为 accept 之前的方式），作为对照；
+ * - flat：FlatAst 上按节点种类 switch。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraversalBenchmark {
+
+    @State(Scope.Thread)
+    public static class Trees {
+        CompUnit unit;
+        FlatAst flat;
+
+        @Setup(Level.Trial)
+        public void parse(ProgramState program) {
+            NamePool names = new NamePool();
+            unit = new Parser(new TokenStream(new Lexer(program.buffer(), names))).parse();
+            flat = FlatAstBuilder.build(unit, names);
+        }
+    }
+
+    @Benchmark
+    public int accept(Trees trees) {
+        AcceptCounter counter = new AcceptCounter();
+        for (Declaration item : trees.unit.getDeclarations()) {
+            item.accept(counter);
+        }
+        return counter.count;
+    }
+
+    @Benchmark
+    public int instanceOf(Trees trees) {
+        InstanceOfCounter counter = new InstanceOfCounter();
+        for (Declaration item : trees.unit.getDeclarations()) {
+            counter.statement(item);
+        }
+        return counter.count;
+    }
+
+    @Benchmark
+    public int flat(Trees trees) {
+        FlatCounter counter = new FlatCounter(trees.flat);
+        counter.analyze();
+        return counter.count;
+    }
+
+    static final class AcceptCounter implements StatementVisitor, ExpressionVisitor<Void> {
+        int count;
+
+        private void statement(Statement node) {
+            if (node != null) node.accept(this);
+        }
+
+        private void expression(Expression node) {
+            if (node != null) node.accept(this);
+        }
+
+        private void expressions(List<? extends Expression> nodes) {
+            if (nodes != null) for (Expression node : nodes) expression(node);
+        }
+
+        public void visit(VarDecl node) {
+            count++;
+            for (VarDef def : node.varDefs) {
+                count++;
+                expression(def.indexExp);
+                InitVal init = def.initialValue;
+                if (init != null) {
+                    count++;
+                    if (init.isExpression) expression(init.getSingleValue());
+                    else expressions(init.getListValue());
+                }
+            }
+        }
+
+        public void visit(FuncDef node) {
+            count++;
+            if (node.params != null) count += node.params.size();
+            visit(node.body, true);
+        }
+
+        public void visit(mainFuncDef node) {
+            count++;
+            visit(node.body, true);
+        }
+
+        public void visit(Block node, boolean isFunc) {
+            count++;
+            for (Statement item : node.items) statement(item);
+        }
+
+        public void visit(AssignStmt node) {
+            count++;
+            expression(node.lval);
+            expression(node.value);
+        }
+
+        public void visit(IfStmt node) {
+            count++;
+            expression(node.condition);
+            statement(node.thenBranch);
+            statement(node.elseBranch);
+        }
+
+        public void visit(ForStmt node) {
+            count++;
+            if (node.init != null) for (AssignStmt assign : node.init) visit(assign);
+            expression(node.condition);
+            if (node.update != null) for (AssignStmt assign : node.update) visit(assign);
+            statement(node.body);
+        }
+
+        public void visit(ReturnStmt node) {
+            count++;
+            expression(node.returnValue);
+        }
+
+        public void visit(BreakStmt node) { count++; }
+
+        public void visit(ContinueStmt node) { count++; }
+
+        public void visit(PrintfStmt node) {
+            count++;
+            expressions(node.args);
+        }
+
+        public void visit(ExpStmt node) {
+            count++;
+            expression(node.expression);
+        }
+
+        public Void visit(BinaryExp node) {
+            count++;
+            expression(node.left);
+            expression(node.right);
+            return null;
+        }
+
+        public Void visit(UnaryExp node) {
+            count++;
+            expression(node.operand);
+            return null;
+        }
+
+        public Void visit(LVal node) {
+            count++;
+            expression(node.exp);
+            return null;
+        }
+
+        public Void visit(FuncCall node) {
+            count++;
+            expressions(node.args);
+            return null;
+        }
+
+        public Void visit(NumberLiteral node) {
+            count++;
+            return null;
+        }
+    }
+
+    // 与 AcceptCounter 访问相同的节点，但用 instanceof 测试分派
+    static final class InstanceOfCounter {
+        int count;
+
+        void statement(Statement node) {
+            if (node == null) return;
+            count++;
+            if (node instanceof VarDecl) {
+                for (VarDef def : ((VarDecl) node).varDefs) {
+                    count++;
+                    expression(def.indexExp);
+                    InitVal init = def.initialValue;
+                    if (init != null) {
+                        count++;
+                        if (init.isExpression) expression(init.getSingleValue());
+                        else expressions(init.getListValue());
+                    }
+                }
+            } else if (node instanceof FuncDef) {
+                FuncDef def = (FuncDef) node;
+                if (def.params != null) count += def.params.size();
+                statement(def.body);
+            } else if (node instanceof mainFuncDef) {
+                statement(((mainFuncDef) node).body);
+            } else if (node instanceof Block) {
+                for (Statement item : ((Block) node).items) statement(item);
+            } else if (node instanceof AssignStmt) {
+                expression(((AssignStmt) node).lval);
+                expression(((AssignStmt) node).value);
+            } else if (node instanceof IfStmt) {
+                IfStmt ifStmt = (IfStmt) node;
+                expression(ifStmt.condition);
+                statement(ifStmt.thenBranch);
+                statement(ifStmt.elseBranch);
+            } else if (node instanceof ForStmt) {
+                ForStmt forStmt = (ForStmt) node;
+                if (forStmt.init != null) for (AssignStmt assign : forStmt.init) statement(assign);
+                expression(forStmt.condition);
+                if (forStmt.update != null) for (AssignStmt assign : forStmt.update) statement(assign);
+                statement(forStmt.body);
+            } else if (node instanceof ReturnStmt) {
+                expression(((ReturnStmt) node).returnValue);
+            } else if (node instanceof PrintfStmt) {
+                expressions(((PrintfStmt) node).args);
+            } else if (node instanceof ExpStmt) {
+                expression(((ExpStmt) node).expression);
+            }
+        }
+
+        void expression(Expression node) {
+            if (node == null) return;
+            count++;
+            if (node instanceof BinaryExp) {
+                expression(((BinaryExp) node).left);
+                expression(((BinaryExp) node).right);
+            } else if (node instanceof UnaryExp) {
+                expression(((UnaryExp) node).operand);
+            } else if (node instanceof FuncCall) {
+                expressions(((FuncCall) node).args);
+            } else if (node instanceof LVal) {
+                expression(((LVal) node).exp);
+            }
+        }
+
+        private void expressions(List<? extends Expression> nodes) {
+            if (nodes != null) for (Expression node : nodes) expression(node);
+        }
+    }
+
+    static final class FlatCounter extends FlatAstVisitor {
+        int count;
+
+        FlatCounter(FlatAst ast) {
+            super(ast);
+        }
+
+        @Override
+        public void visit(int node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visitBlock(int node, boolean isFunc) {
+            if (isFunc) count++; // 函数体不经过 visit(int)
+            super.visitBlock(node, isFunc);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package bench.flat;
+
+import frontend.NamePool;
+import frontend.TokenType;
+
+import java.util.Arrays;
+
+/**
+ * 扁平语法树 (FlatAst)
+ * 整棵树存放在几个并列的 int 数组中，节点是数组下标，按先序排列：
+ * - 节点的第一个子节点就是下一个下标（有子节点时），兄弟节点用 next 链接；
+ * - 一棵子树占据连续的下标区间 [n, end(n))，遍历子树就是顺序扫描数组。
+ * 标识符保存名字池中的编号，数字和格式字符串的原文保存在文字表中。
+ * 可选的子节点不存放占位节点：只有一个可选子节点时看有没有子节点，有多个时看 aux 中的标志位。
+ * 这是供基准测试对比遍历开销的表示，由 FlatAstBuilder 从对象语法树转换得到，编译器不使用。
+ *
+ * 各种节点的 data / aux 与子节点：
+ * COMP_UNIT     子节点为顶层声明
+ * VAR_DECL      aux: CONST | STATIC        子节点为 VAR_DEF
+ * VAR_DEF       data: 名字  aux: HAS_INDEX | HAS_INIT    子节点 [下标] [INIT_VAL]
+ * INIT_VAL      aux: 1 表示单个表达式       子节点为表达式
+ * FUNC_DEF      data: 名字  aux: 1 表示 void  子节点 FUNC_PARAM... BLOCK
+ * FUNC_PARAM    data: 名字  aux: 1 表示数组
+ * MAIN_FUNC_DEF 子节点 BLOCK
+ * BLOCK         aux: '}' 的行号             子节点为块内的语句和声明
+ * ASSIGN_STMT   子节点 LVAL 表达式
+ * IF_STMT       子节点 条件 then [else]
+ * FOR_STMT      aux: HAS_INIT | HAS_COND | HAS_UPDATE  子节点 [LIST] [条件] [LIST] 循环体
+ * LIST          for 的初始化或更新部分，子节点为 ASSIGN_STMT
+ * RETURN_STMT   子节点 [表达式]
+ * PRINTF_STMT   data: 格式字符串（文字表下标） 子节点为实参
+ * EXP_STMT      子节点 [表达式]
+ * BINARY_EXP    data: 运算符的 TokenType 序号  子节点 左 右
+ * UNARY_EXP     data: 运算符的 TokenType 序号  子节点 操作数
+ * FUNC_CALL     data: 名字                 子节点为实参
+ * LVAL          data: 名字                 子节点 [下标]
+ * NUMBER        data: 文字表下标
+ */
+public final class FlatAst {
+    public static final int COMP_UNIT = 0;
+    public static final int VAR_DECL = 1;
+    public static final int VAR_DEF = 2;
+    public static final int INIT_VAL = 3;
+    public static final int FUNC_DEF = 4;
+    public static final int FUNC_PARAM = 5;
+    public static final int MAIN_FUNC_DEF = 6;
+    public static final int BLOCK = 7;
+    public static final int ASSIGN_STMT = 8;
+    public static final int IF_STMT = 9;
+    public static final int FOR_STMT = 10;
+    public static final int LIST = 11;
+    public static final int BREAK_STMT = 12;
+    public static final int CONTINUE_STMT = 13;
+    public static final int RETURN_STMT = 14;
+    public static final int PRINTF_STMT = 15;
+    public static final int EXP_STMT = 16;
+    public static final int BINARY_EXP = 17;
+    public static final int UNARY_EXP = 18;
+    public static final int FUNC_CALL = 19;
+    public static final int LVAL = 20;
+    public static final int NUMBER = 21;
+
+    // VAR_DECL 的 aux
+    public static final int CONST = 1;
+    public static final int STATIC = 2;
+    // VAR_DEF 的 aux
+    public static final int HAS_INDEX = 1;
+    public static final int HAS_INIT = 2;
+    // FOR_STMT 的 aux
+    public static final int HAS_COND = 4;
+    public static final int HAS_UPDATE = 8;
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private final NamePool names;
+
+    // 按节点下标的并列数组
+    int[] kinds;
+    int[] lines;
+    int[] data;
+    int[] aux;
+    int[] next; // 下一个兄弟节点，没有时为-1
+    int[] ends; // 子树结束的下标（不含）
+    int size;
+
+    // 文字表
+    String[] literals = new String[16];
+    int literalCount;
+
+    FlatAst(NamePool names, int capacity) {
+        this.names = names;
+        kinds = new int[capacity];
+        lines = new int[capacity];
+        data = new int[capacity];
+        aux = new int[capacity];
+        next = new int[capacity];
+        ends = new int[capacity];
+    }
+
+    // 追加一个节点，子树的结束位置和兄弟链接由构建者填写
+    int append(int kind, int line, int nodeData, int nodeAux) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            data = Arrays.copyOf(data, capacity);
+            aux = Arrays.copyOf(aux, capacity);
+            next = Arrays.copyOf(next, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        int node = size++;
+        kinds[node] = kind;
+        lines[node] = line;
+        data[node] = nodeData;
+        aux[node] = nodeAux;
+        next[node] = -1;
+        ends[node] = node + 1;
+        return node;
+    }
+
+    int addLiteral(String text) {
+        if (literalCount == literals.length) {
+            literals = Arrays.copyOf(literals, literalCount * 2);
+        }
+        literals[literalCount] = text;
+        return literalCount++;
+    }
+
+    // ----- 读取 -----
+
+    public int root() {
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public NamePool getNames() {
+        return names;
+    }
+
+    public int kind(int node) {
+        return kinds[node];
+    }
+
+    public int line(int node) {
+        return lines[node];
+    }
+
+    public int data(int node) {
+        return data[node];
+    }
+
+    public int aux(int node) {
+        return aux[node];
+    }
+
+    public boolean hasFlag(int node, int flag) {
+        return (aux[node] & flag) != 0;
+    }
+
+    /**
+     * 第一个子节点，没有时为-1
+     */
+    public int firstChild(int node) {
+        return ends[node] > node + 1 ? node + 1 : -1;
+    }
+
+    /**
+     * 下一个兄弟节点，没有时为-1
+     */
+    public int nextSibling(int node) {
+        return next[node];
+    }
+
+    /**
+     * 子树结束的下标（不含）：子树的全部节点是 [node, subtreeEnd(node))
+     */
+    public int subtreeEnd(int node) {
+        return ends[node];
+    }
+
+    public int childCount(int node) {
+        int count = 0;
+        for (int child = firstChild(node); child >= 0; child = next[child]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 第index个子节点，没有时为-1
+     */
+    public int child(int node, int index) {
+        int child = firstChild(node);
+        while (child >= 0 && index-- > 0) {
+            child = next[child];
+        }
+        return child;
+    }
+
+    /**
+     * 标识符节点（VAR_DEF、FUNC_DEF、FUNC_PARAM、FUNC_CALL、LVAL）的名字
+     */
+    public String name(int node) {
+        return names.get(data[node]);
+    }
+
+    /**
+     * NUMBER 的原文或 PRINTF_STMT 的格式字符串
+     */
+    public String literal(int node) {
+        return literals[data[node]];
+    }
+
+    /**
+     * BINARY_EXP、UNARY_EXP 的运算符
+     */
+    public TokenType operator(int node) {
+        return TOKEN_TYPES[data[node]];
+    }
+}
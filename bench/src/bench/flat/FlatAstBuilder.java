@@ -0,0 +1,289 @@
+package bench.flat;
+
+import ast.Declaration;
+import ast.Expression;
+import ast.Statement;
+import ast.declarationNodes.InitVal;
+import ast.declarationNodes.VarDecl;
+import ast.declarationNodes.VarDef;
+import ast.expressionNodes.*;
+import ast.statementNodes.*;
+import ast.topLevelNodes.CompUnit;
+import ast.topLevelNodes.FuncDef;
+import ast.topLevelNodes.FuncParam;
+import ast.topLevelNodes.mainFuncDef;
+import frontend.NamePool;
+import frontend.Token;
+import frontend.TokenType;
+
+import java.util.List;
+
+/**
+ * 扁平语法树的构建者 (FlatAstBuilder)
+ * 由已经建好的对象语法树转换得到，顶层声明逐个加入。
+ * 只用于基准测试：TraversalBenchmark 与对象语法树的遍历做对比，ProgramState 用它统计节点数。
+ * 编译器本身（Compiler、BatchCompiler）不使用扁平语法树，所以它放在 bench 下而不在 ast 中。
+ */
+public final class FlatAstBuilder {
+    private final FlatAst ast;
+    private int lastItem = -1;
+
+    /**
+     * @param names 词法分析使用的名字池，标识符直接保存Token中的编号
+     */
+    public FlatAstBuilder(NamePool names) {
+        this(names, 1024);
+    }
+
+    public FlatAstBuilder(NamePool names, int expectedNodes) {
+        ast = new FlatAst(names, Math.max(expectedNodes, 16));
+        ast.append(FlatAst.COMP_UNIT, 0, 0, 0);
+    }
+
+    public static FlatAst build(CompUnit unit, NamePool names) {
+        FlatAstBuilder builder = new FlatAstBuilder(names);
+        if (unit.getDeclarations() != null) {
+            for (Declaration item : unit.getDeclarations()) {
+                builder.add(item);
+            }
+        }
+        return builder.finish();
+    }
+
+    /**
+     * 加入一个顶层声明
+     */
+    public void add(Declaration item) {
+        if (item == null) {
+            return;
+        }
+        if (lastItem < 0) {
+            ast.lines[0] = item.getLineNum();
+        }
+        lastItem = link(lastItem, declaration(item));
+    }
+
+    public FlatAst finish() {
+        ast.ends[0] = ast.size;
+        return ast;
+    }
+
+    // ----- 按先序追加节点 -----
+
+    private int declaration(Declaration item) {
+        if (item instanceof VarDecl) {
+            return varDecl((VarDecl) item);
+        }
+        if (item instanceof FuncDef) {
+            FuncDef def = (FuncDef) item;
+            int node = ast.append(FlatAst.FUNC_DEF, def.getLineNum(), nameId(def.ident),
+                    def.funcType.type() == TokenType.VOIDTK ? 1 : 0);
+            int last = -1;
+            if (def.params != null) {
+                for (FuncParam param : def.params) {
+                    last = link(last, ast.append(FlatAst.FUNC_PARAM, param.getLineNum(), nameId(param.ident),
+                            param.isArray ? 1 : 0));
+                }
+            }
+            link(last, block(def.body));
+            return close(node);
+        }
+        mainFuncDef main = (mainFuncDef) item;
+        int node = ast.append(FlatAst.MAIN_FUNC_DEF, main.getLineNum(), 0, 0);
+        block(main.body);
+        return close(node);
+    }
+
+    private int varDecl(VarDecl decl) {
+        int node = ast.append(FlatAst.VAR_DECL, decl.getLineNum(), 0,
+                (decl.isConst ? FlatAst.CONST : 0) | (decl.isStatic ? FlatAst.STATIC : 0));
+        int last = -1;
+        if (decl.varDefs != null) {
+            for (VarDef def : decl.varDefs) {
+                int defNode = ast.append(FlatAst.VAR_DEF, def.getLineNum(), nameId(def.ident),
+                        (def.indexExp != null ? FlatAst.HAS_INDEX : 0) | (def.initialValue != null ? FlatAst.HAS_INIT : 0));
+                int child = -1;
+                if (def.indexExp != null) {
+                    child = link(child, expression(def.indexExp));
+                }
+                if (def.initialValue != null) {
+                    link(child, initVal(def.initialValue));
+                }
+                last = link(last, close(defNode));
+            }
+        }
+        return close(node);
+    }
+
+    private int initVal(InitVal init) {
+        int node = ast.append(FlatAst.INIT_VAL, init.getLineNum(), 0, init.isExpression ? 1 : 0);
+        if (init.isExpression) {
+            expression(init.getSingleValue());
+        } else {
+            expressions(init.getListValue());
+        }
+        return close(node);
+    }
+
+    private int block(Block block) {
+        int node = ast.append(FlatAst.BLOCK, block.getLineNum(), 0, block.getRightBraceLineNum());
+        int last = -1;
+        if (block.items != null) {
+            for (Statement item : block.items) {
+                if (item != null) {
+                    last = link(last, statement(item));
+                }
+            }
+        }
+        return close(node);
+    }
+
+    private int statement(Statement stmt) {
+        if (stmt == null) {
+            return ast.append(FlatAst.EXP_STMT, 0, 0, 0); // 语法错误恢复留下的空位，当作空语句
+        }
+        if (stmt instanceof VarDecl) {
+            return varDecl((VarDecl) stmt);
+        }
+        if (stmt instanceof Block) {
+            return block((Block) stmt);
+        }
+        if (stmt instanceof AssignStmt) {
+            return assign((AssignStmt) stmt);
+        }
+        if (stmt instanceof IfStmt) {
+            IfStmt ifStmt = (IfStmt) stmt;
+            int node = ast.append(FlatAst.IF_STMT, ifStmt.getLineNum(), 0, 0);
+            int child = link(-1, expression(ifStmt.condition));
+            child = link(child, statement(ifStmt.thenBranch));
+            if (ifStmt.elseBranch != null) {
+                link(child, statement(ifStmt.elseBranch));
+            }
+            return close(node);
+        }
+        if (stmt instanceof ForStmt) {
+            ForStmt forStmt = (ForStmt) stmt;
+            int node = ast.append(FlatAst.FOR_STMT, forStmt.getLineNum(), 0,
+                    (forStmt.init != null ? FlatAst.HAS_INIT : 0) | (forStmt.condition != null ? FlatAst.HAS_COND : 0)
+                            | (forStmt.update != null ? FlatAst.HAS_UPDATE : 0));
+            int child = -1;
+            if (forStmt.init != null) {
+                child = link(child, assignList(forStmt.init, forStmt.getLineNum()));
+            }
+            if (forStmt.condition != null) {
+                child = link(child, expression(forStmt.condition));
+            }
+            if (forStmt.update != null) {
+                child = link(child, assignList(forStmt.update, forStmt.getLineNum()));
+            }
+            link(child, statement(forStmt.body));
+            return close(node);
+        }
+        if (stmt instanceof BreakStmt) {
+            return ast.append(FlatAst.BREAK_STMT, stmt.getLineNum(), 0, 0);
+        }
+        if (stmt instanceof ContinueStmt) {
+            return ast.append(FlatAst.CONTINUE_STMT, stmt.getLineNum(), 0, 0);
+        }
+        if (stmt instanceof ReturnStmt) {
+            int node = ast.append(FlatAst.RETURN_STMT, stmt.getLineNum(), 0, 0);
+            if (((ReturnStmt) stmt).returnValue != null) {
+                expression(((ReturnStmt) stmt).returnValue);
+            }
+            return close(node);
+        }
+        if (stmt instanceof PrintfStmt) {
+            PrintfStmt printf = (PrintfStmt) stmt;
+            int node = ast.append(FlatAst.PRINTF_STMT, printf.getLineNum(), ast.addLiteral(printf.formatString.value()), 0);
+            expressions(printf.args);
+            return close(node);
+        }
+        ExpStmt expStmt = (ExpStmt) stmt;
+        int node = ast.append(FlatAst.EXP_STMT, expStmt.getLineNum(), 0, 0);
+        if (expStmt.expression != null) {
+            expression(expStmt.expression);
+        }
+        return close(node);
+    }
+
+    private int assign(AssignStmt assign) {
+        int node = ast.append(FlatAst.ASSIGN_STMT, assign.getLineNum(), 0, 0);
+        int child = link(-1, expression(assign.lval));
+        if (assign.value != null) {
+            link(child, expression(assign.value));
+        }
+        return close(node);
+    }
+
+    private int assignList(List<AssignStmt> assigns, int line) {
+        int node = ast.append(FlatAst.LIST, line, 0, 0);
+        int last = -1;
+        for (AssignStmt assign : assigns) {
+            last = link(last, assign(assign));
+        }
+        return close(node);
+    }
+
+    private void expressions(List<Expression> list) {
+        int last = -1;
+        if (list != null) {
+            for (Expression exp : list) {
+                last = link(last, expression(exp));
+            }
+        }
+    }
+
+    private int expression(Expression exp) {
+        if (exp instanceof BinaryExp) {
+            BinaryExp binary = (BinaryExp) exp;
+            int node = ast.append(FlatAst.BINARY_EXP, binary.getLineNum(), binary.op.type().ordinal(), 0);
+            link(expression(binary.left), expression(binary.right));
+            return close(node);
+        }
+        if (exp instanceof UnaryExp) {
+            UnaryExp unary = (UnaryExp) exp;
+            int node = ast.append(FlatAst.UNARY_EXP, unary.getLineNum(), unary.op.type().ordinal(), 0);
+            expression(unary.operand);
+            return close(node);
+        }
+        if (exp instanceof LVal) {
+            LVal lval = (LVal) exp;
+            int node = ast.append(FlatAst.LVAL, lval.getLineNum(), nameId(lval.ident), 0);
+            if (lval.exp != null) {
+                expression(lval.exp);
+            }
+            return close(node);
+        }
+        if (exp instanceof FuncCall) {
+            FuncCall call = (FuncCall) exp;
+            int node = ast.append(FlatAst.FUNC_CALL, call.getLineNum(), nameId(call.ident), 0);
+            expressions(call.args);
+            return close(node);
+        }
+        NumberLiteral number = (NumberLiteral) exp;
+        return ast.append(FlatAst.NUMBER, number.getLineNum(), ast.addLiteral(number.number.value()), 0);
+    }
+
+    // 子节点加入后记录子树的结束位置
+    private int close(int node) {
+        ast.ends[node] = ast.size;
+        return node;
+    }
+
+    // 把node接在兄弟previous之后，返回node
+    private int link(int previous, int node) {
+        if (previous >= 0) {
+            ast.next[previous] = node;
+        }
+        return node;
+    }
+
+    private int nameId(Token ident) {
+        NamePool names = ast.getNames();
+        int id = ident.nameId();
+        if (id < 0 || id >= names.size() || !names.get(id).equals(ident.value())) {
+            id = names.intern(ident.value());
+        }
+        return id;
+    }
+}
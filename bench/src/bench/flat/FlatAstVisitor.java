@@ -0,0 +1,151 @@
+package bench.flat;
+
+/**
+ * 扁平语法树的遍历器 (FlatAstVisitor)
+ * 与 SemanticVisitor 的 visit 重载一一对应：visitVarDecl 对应 visit(VarDecl)，visitBlock(node, isFunc)
+ * 对应 visit(Block, boolean)……，子节点的访问顺序也相同，已有的遍历可以逐个方法对照移植。
+ * 分派是对节点种类的 switch，不做类型测试；默认实现按顺序访问全部子节点，子类只需覆盖关心的节点。
+ */
+public class FlatAstVisitor {
+    protected final FlatAst ast;
+
+    public FlatAstVisitor(FlatAst ast) {
+        this.ast = ast;
+    }
+
+    public void analyze() {
+        visitCompUnit(ast.root());
+    }
+
+    /**
+     * 按节点种类分派
+     */
+    public void visit(int node) {
+        switch (ast.kind(node)) {
+            case FlatAst.COMP_UNIT: visitCompUnit(node); break;
+            case FlatAst.VAR_DECL: visitVarDecl(node); break;
+            case FlatAst.VAR_DEF: visitVarDef(node); break;
+            case FlatAst.INIT_VAL: visitInitVal(node); break;
+            case FlatAst.FUNC_DEF: visitFuncDef(node); break;
+            case FlatAst.FUNC_PARAM: visitFuncParam(node); break;
+            case FlatAst.MAIN_FUNC_DEF: visitMainFuncDef(node); break;
+            case FlatAst.BLOCK: visitBlock(node, false); break;
+            case FlatAst.ASSIGN_STMT: visitAssignStmt(node); break;
+            case FlatAst.IF_STMT: visitIfStmt(node); break;
+            case FlatAst.FOR_STMT: visitForStmt(node); break;
+            case FlatAst.LIST: visitChildren(node); break;
+            case FlatAst.BREAK_STMT: visitBreakStmt(node); break;
+            case FlatAst.CONTINUE_STMT: visitContinueStmt(node); break;
+            case FlatAst.RETURN_STMT: visitReturnStmt(node); break;
+            case FlatAst.PRINTF_STMT: visitPrintfStmt(node); break;
+            case FlatAst.EXP_STMT: visitExpStmt(node); break;
+            case FlatAst.BINARY_EXP: visitBinaryExp(node); break;
+            case FlatAst.UNARY_EXP: visitUnaryExp(node); break;
+            case FlatAst.FUNC_CALL: visitFuncCall(node); break;
+            case FlatAst.LVAL: visitLVal(node); break;
+            case FlatAst.NUMBER: visitNumberLiteral(node); break;
+            default: throw new IllegalStateException("unknown node kind " + ast.kind(node));
+        }
+    }
+
+    protected void visitChildren(int node) {
+        for (int child = ast.firstChild(node); child >= 0; child = ast.nextSibling(child)) {
+            visit(child);
+        }
+    }
+
+    public void visitCompUnit(int node) { visitChildren(node); }
+
+    public void visitVarDecl(int node) { visitChildren(node); }
+
+    // 先下标、再初值
+    public void visitVarDef(int node) { visitChildren(node); }
+
+    public void visitInitVal(int node) { visitChildren(node); }
+
+    // 形参，再函数体（函数体与形参同一作用域）
+    public void visitFuncDef(int node) {
+        for (int child = ast.firstChild(node); child >= 0; child = ast.nextSibling(child)) {
+            if (ast.kind(child) == FlatAst.BLOCK) {
+                visitBlock(child, true);
+            } else {
+                visit(child);
+            }
+        }
+    }
+
+    public void visitFuncParam(int node) { }
+
+    public void visitMainFuncDef(int node) { visitBlock(ast.firstChild(node), true); }
+
+    public void visitBlock(int node, boolean isFunc) { visitChildren(node); }
+
+    public void visitAssignStmt(int node) { visitChildren(node); }
+
+    public void visitIfStmt(int node) { visitChildren(node); }
+
+    // 初始化、条件、更新、循环体
+    public void visitForStmt(int node) { visitChildren(node); }
+
+    public void visitBreakStmt(int node) { }
+
+    public void visitContinueStmt(int node) { }
+
+    public void visitReturnStmt(int node) { visitChildren(node); }
+
+    public void visitPrintfStmt(int node) { visitChildren(node); }
+
+    public void visitExpStmt(int node) { visitChildren(node); }
+
+    public void visitBinaryExp(int node) { visitChildren(node); }
+
+    public void visitUnaryExp(int node) { visitChildren(node); }
+
+    public void visitFuncCall(int node) { visitChildren(node); }
+
+    public void visitLVal(int node) { visitChildren(node); }
+
+    public void visitNumberLiteral(int node) { }
+
+    // ----- 按位置读取子节点 -----
+
+    /**
+     * FOR_STMT 的各部分，没有时为-1
+     */
+    public int forInit(int node) {
+        return ast.hasFlag(node, FlatAst.HAS_INIT) ? ast.firstChild(node) : -1;
+    }
+
+    public int forCondition(int node) {
+        if (!ast.hasFlag(node, FlatAst.HAS_COND)) return -1;
+        int child = ast.firstChild(node);
+        return ast.hasFlag(node, FlatAst.HAS_INIT) ? ast.nextSibling(child) : child;
+    }
+
+    public int forUpdate(int node) {
+        if (!ast.hasFlag(node, FlatAst.HAS_UPDATE)) return -1;
+        int skip = (ast.hasFlag(node, FlatAst.HAS_INIT) ? 1 : 0) + (ast.hasFlag(node, FlatAst.HAS_COND) ? 1 : 0);
+        return ast.child(node, skip);
+    }
+
+    public int forBody(int node) {
+        int child = ast.firstChild(node);
+        while (ast.nextSibling(child) >= 0) {
+            child = ast.nextSibling(child);
+        }
+        return child;
+    }
+
+    /**
+     * VAR_DEF 的下标和初值，没有时为-1
+     */
+    public int varDefIndex(int node) {
+        return ast.hasFlag(node, FlatAst.HAS_INDEX) ? ast.firstChild(node) : -1;
+    }
+
+    public int varDefInit(int node) {
+        if (!ast.hasFlag(node, FlatAst.HAS_INIT)) return -1;
+        int child = ast.firstChild(node);
+        return ast.hasFlag(node, FlatAst.HAS_INDEX) ? ast.nextSibling(child) : child;
+    }
+}
@@ -0,0 +1,817 @@
+package codegen;
+
+import ast.Declaration;
+import ast.Expression;
+import ast.ExpressionVisitor;
+import ast.Statement;
+import ast.StatementVisitor;
+import ast.declarationNodes.InitVal;
+import ast.declarationNodes.VarDecl;
+import ast.declarationNodes.VarDef;
+import ast.expressionNodes.*;
+import ast.statementNodes.*;
+import ast.topLevelNodes.CompUnit;
+import ast.topLevelNodes.FuncDef;
+import ast.topLevelNodes.FuncParam;
+import ast.topLevelNodes.mainFuncDef;
+import codegen.ir.IRBuilder;
+import codegen.ir.Module;
+import codegen.ir.inst.AllocaInst;
+import codegen.ir.inst.BinaryInst;
+import codegen.ir.inst.ZExtInst;
+import codegen.ir.types.ArrayType;
+import codegen.ir.types.PointerType;
+import codegen.ir.types.Type;
+import codegen.ir.types.VoidType;
+import codegen.ir.values.*;
+import frontend.TokenType;
+import symbol.FuncSymbol;
+import symbol.Symbol;
+import symbol.ValueSymbol;
+import symbol.types.SymbolType;
+import symbol.types.TypeKind;
+import visitor.ConstEvaluator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LLVM IR 生成器 (LLVMIRGenerator)
+ * 按源语言的结构（定义变量、读写左值、运算、if、for、调用……）提供生成操作，
+ * 由遍历语法树的一方按求值顺序调用，在内存中构建 Module。
+ * 融合模式下由 SemanticVisitor 在做检查的同一次遍历中调用，不需要再遍历一次语法树、也不需要再查符号表：
+ * LVal/FuncCall 上已经绑定了符号，符号到地址的映射保存在 symbolValueMap 中。
+ * 独立模式（generate）在语义分析之后单独遍历一次语法树，按同样的顺序调用同样的生成操作，
+ * 声明节点（VarDef、FuncParam、FuncDef、mainFuncDef）上绑定的符号同样不需要再查符号表。
+ *
+ * 约定：
+ * - 表达式的值都是 i32，比较的结果立即零扩展；作为条件使用时再去掉这层扩展。
+ * - 局部变量一律在入口块开头 alloca；全局变量和 static 局部变量是 GlobalVariable。
+ * - 编译期能求值的表达式（见 ConstEvaluator）直接生成立即数。
+ * - 传入的 Value 为 null（输入有语义错误时）按常量0处理，保证不会中途失败。
+ */
+public class LLVMIRGenerator {
+    private final Module module;
+    private final IRBuilder builder;
+    private final ConstEvaluator constEvaluator;
+    // 符号 -> 存储地址（alloca 或 GlobalVariable），函数符号 -> Function
+    private final Map<Symbol, Value> symbolValueMap = new IdentityHashMap<>();
+    private final ArrayDeque<Loop> loops = new ArrayDeque<>();
+
+    // 运行库函数。源程序可以定义同名的全局变量或函数（putint、putch 不是保留字），
+    // 它们在 IR 中改名（见 globalName），运行库的声明保持原名以便链接
+    private static final Set<String> RUNTIME_NAMES = Set.of("getint", "putint", "putch");
+    private final Function getint;
+    private final Function putint;
+    private final Function putch;
+
+    private Function currentFunction;
+    private AllocaInst lastAlloca; // 当前函数入口块开头的最后一条 alloca，新的 alloca 插在它之后
+    private int paramIndex;    // 下一个要绑定的形参
+    private int blockCounter;
+    private int staticCounter;
+
+    public LLVMIRGenerator(ConstEvaluator constEvaluator) {
+        this.module = new Module("main");
+        this.builder = new IRBuilder(module.getContext());
+        this.constEvaluator = constEvaluator;
+        getint = declareRuntime("getint", builder.getInt32Type());
+        putint = declareRuntime("putint", builder.getVoidType(), builder.getInt32Type());
+        putch = declareRuntime("putch", builder.getVoidType(), builder.getInt32Type());
+    }
+
+    public Module getModule() {
+        return module;
+    }
+
+    /**
+     * 独立模式：为已经完成语义分析且没有错误的语法树生成整个模块，每个生成器只调用一次。
+     * 可以用在增量分析之后：从缓存恢复的顶层声明保留着上一次分析时的绑定，与融合模式不同，同样能生成代码
+     */
+    public Module generate(CompUnit root) {
+        Lowering lowering = new Lowering();
+        if (root.getDeclarations() != null) {
+            for (Declaration decl : root.getDeclarations()) {
+                decl.accept(lowering);
+            }
+        }
+        return module;
+    }
+
+    private Function declareRuntime(String name, Type returnType, Type... params) {
+        Function function = new Function(builder.getFunctionType(returnType, Arrays.asList(params)), name);
+        module.addFunction(function);
+        return function;
+    }
+
+    // 全局变量、函数在 IR 中的名字：与运行库函数同名的加上后缀。
+    // 后缀含 '.'，不会与源程序的标识符相同，也不会与 static 局部变量的名字（名字.序号）相同
+    private static String globalName(String name) {
+        return RUNTIME_NAMES.contains(name) ? name + ".user" : name;
+    }
+
+    /**
+     * 源程序中预定义的运行库函数符号（getint）
+     */
+    public void bindRuntime(FuncSymbol symbol) {
+        if ("getint".equals(symbol.getName())) {
+            symbolValueMap.put(symbol, getint);
+        }
+    }
+
+    // ----- 变量 -----
+
+    /**
+     * 全局变量：初值必须在编译期求出，存为静态数据
+     */
+    public void defineGlobal(ValueSymbol symbol, VarDef def) {
+        GlobalVariable global = new GlobalVariable(globalName(symbol.getName()), storageType(symbol),
+                symbol.getType().isConst(), initialValues(symbol, def));
+        module.addGlobal(global);
+        symbolValueMap.put(symbol, global);
+    }
+
+    /**
+     * 局部变量。init 是按顺序求出的初值（标量一个，数组按元素），没有初值时为null
+     */
+    public void defineLocal(ValueSymbol symbol, VarDef def, List<Value> init) {
+        if (symbol.getType().getKind() == TypeKind.STATIC_INT) {
+            // static 局部变量只初始化一次，和全局变量一样放在静态存储中
+            GlobalVariable global = new GlobalVariable(symbol.getName() + "." + staticCounter++,
+                    storageType(symbol), false, initialValues(symbol, def));
+            module.addGlobal(global);
+            symbolValueMap.put(symbol, global);
+            return;
+        }
+        if (symbol.hasConstValue() && !symbol.getType().isArray()) {
+            return; // 常量标量的读取都被折叠成立即数，不需要存储
+        }
+        AllocaInst slot = entryAlloca(storageType(symbol));
+        symbolValueMap.put(symbol, slot);
+        if (init == null) {
+            return;
+        }
+        if (!symbol.getType().isArray()) {
+            builder.createStore(value(init.isEmpty() ? null : init.get(0)), slot);
+            return;
+        }
+        // 数组按元素逐个写入，未写出的元素补0
+        int length = Math.max(symbol.getArrayLength(), 0);
+        for (int i = 0; i < length; i++) {
+            Value element = i < init.size() ? value(init.get(i)) : builder.getInt32(0);
+            builder.createStore(element, builder.createGEP(slot, List.of(builder.getInt32(0), builder.getInt32(i))));
+        }
+    }
+
+    private Type storageType(ValueSymbol symbol) {
+        if (symbol.getType().isArray()) {
+            return builder.getArrayType(Math.max(symbol.getArrayLength(), 0), builder.getInt32Type());
+        }
+        return builder.getInt32Type();
+    }
+
+    // 静态存储的初值：常量用已经求出的值，其他变量对初值求值，不能求值时为全0
+    private int[] initialValues(ValueSymbol symbol, VarDef def) {
+        if (symbol.hasConstValue()) {
+            return fit(symbol.getConstValues(), symbol);
+        }
+        if (def.initialValue == null) {
+            return null;
+        }
+        return fit(constEvaluator.evaluateInitVal(def.initialValue, symbol.getArrayLength()), symbol);
+    }
+
+    private static int[] fit(int[] values, ValueSymbol symbol) {
+        if (values == null || !symbol.getType().isArray()) {
+            return values;
+        }
+        int length = Math.max(symbol.getArrayLength(), 0);
+        return values.length == length ? values : Arrays.copyOf(values, length);
+    }
+
+    private AllocaInst entryAlloca(Type type) {
+        lastAlloca = builder.createAlloca(currentFunction.getEntryBlock(), lastAlloca, type);
+        return lastAlloca;
+    }
+
+    // ----- 函数 -----
+
+    public void beginFunction(FuncSymbol symbol) {
+        Type returnType = symbol.getType() == SymbolType.VOID_FUNC ? builder.getVoidType() : builder.getInt32Type();
+        List<Type> paramTypes = new ArrayList<>();
+        if (symbol.getParams() != null) {
+            for (ValueSymbol param : symbol.getParams()) {
+                paramTypes.add(param.getType().isArray()
+                        ? builder.getPointerType(builder.getInt32Type()) : builder.getInt32Type());
+            }
+        }
+        currentFunction = new Function(builder.getFunctionType(returnType, paramTypes), globalName(symbol.getName()));
+        for (int i = 0; i < paramTypes.size(); i++) {
+            currentFunction.addArgument(new Argument(paramTypes.get(i), "a" + i));
+        }
+        module.addFunction(currentFunction);
+        symbolValueMap.put(symbol, currentFunction);
+        lastAlloca = null;
+        paramIndex = 0;
+        startBlock(newBlock());
+    }
+
+    /**
+     * 形参按顺序绑定：把实参存进入口块的栈槽，之后和局部变量一样读写。
+     * 数组形参的栈槽里存的是 i32*
+     */
+    public void defineParam(ValueSymbol symbol) {
+        if (currentFunction == null || paramIndex >= currentFunction.getArguments().size()) {
+            return;
+        }
+        Argument argument = currentFunction.getArguments().get(paramIndex++);
+        AllocaInst slot = entryAlloca(argument.getType());
+        builder.createStore(argument, slot);
+        symbolValueMap.put(symbol, slot);
+    }
+
+    /**
+     * 函数结束：没有以终结指令结束的基本块（如函数末尾、return 之后的死代码）补上返回
+     */
+    public void endFunction() {
+        boolean isVoid = isVoid(currentFunction);
+        for (BasicBlock block : currentFunction.getBlocks()) {
+            if (!block.hasTerminator()) {
+                builder.setInsertPoint(block);
+                if (isVoid) {
+                    builder.createRetVoid();
+                } else {
+                    builder.createRet(builder.getInt32(0));
+                }
+            }
+        }
+        builder.setInsertPoint(null);
+        currentFunction = null;
+    }
+
+    // ----- 表达式 -----
+
+    public Value constant(int value) {
+        return builder.getInt32(value);
+    }
+
+    /**
+     * 读左值。index 是已经求出的下标（没有下标时为null）；
+     * 不带下标的数组作为实参传递，得到指向首元素的 i32*
+     */
+    public Value load(LVal node, Value index) {
+        Integer folded = constEvaluator.evaluate(node);
+        if (folded != null) {
+            return builder.getInt32(folded);
+        }
+        Value address = symbolValueMap.get(node.getSymbol());
+        if (!(node.getSymbol() instanceof ValueSymbol) || address == null) {
+            return builder.getInt32(0);
+        }
+        if (!node.getSymbol().getType().isArray()) {
+            return builder.createLoad(address);
+        }
+        if (node.exp == null) {
+            return elementAddress(address, builder.getInt32(0));
+        }
+        return builder.createLoad(elementAddress(address, value(index)));
+    }
+
+    /**
+     * 写左值
+     */
+    public void store(LVal node, Value index, Value value) {
+        Value address = symbolValueMap.get(node.getSymbol());
+        if (!(node.getSymbol() instanceof ValueSymbol) || address == null) {
+            return;
+        }
+        if (node.getSymbol().getType().isArray()) {
+            if (node.exp == null) {
+                return;
+            }
+            address = elementAddress(address, value(index));
+        }
+        builder.createStore(value(value), address);
+    }
+
+    // 数组元素的地址：数组变量用 [0, i] 两级下标；数组形参的栈槽中是指针，先读出再用一级下标
+    private Value elementAddress(Value address, Value index) {
+        Type stored = ((PointerType) address.getType()).getElementType();
+        if (stored instanceof ArrayType) {
+            return builder.createGEP(address, List.of(builder.getInt32(0), index));
+        }
+        return builder.createGEP(builder.createLoad(address), List.of(index));
+    }
+
+    public Value unary(TokenType op, Value operand) {
+        Value v = value(operand);
+        if (v instanceof ConstantInt) {
+            int c = ((ConstantInt) v).getValue();
+            return builder.getInt32(op == TokenType.MINU ? -c : op == TokenType.NOT ? (c == 0 ? 1 : 0) : c);
+        }
+        switch (op) {
+            case MINU:
+                return builder.createSub(builder.getInt32(0), v);
+            case NOT:
+                return builder.createZExt(builder.createBinary(BinaryInst.OpCode.ICMP_EQ, v, builder.getInt32(0)));
+            default:
+                return v;
+        }
+    }
+
+    /**
+     * 算术和比较运算（&& 和 || 见 beginLogical）
+     */
+    public Value binary(TokenType op, Value left, Value right) {
+        Value l = value(left);
+        Value r = value(right);
+        BinaryInst.OpCode opcode = opcodeOf(op);
+        if (opcode == null) {
+            return builder.getInt32(0);
+        }
+        if (l instanceof ConstantInt && r instanceof ConstantInt) {
+            Integer folded = fold(opcode, ((ConstantInt) l).getValue(), ((ConstantInt) r).getValue());
+            if (folded != null) {
+                return builder.getInt32(folded);
+            }
+        }
+        Value result = builder.createBinary(opcode, l, r);
+        return BinaryInst.isCompare(opcode) ? builder.createZExt(result) : result;
+    }
+
+    private static BinaryInst.OpCode opcodeOf(TokenType op) {
+        switch (op) {
+            case PLUS: return BinaryInst.OpCode.ADD;
+            case MINU: return BinaryInst.OpCode.SUB;
+            case MULT: return BinaryInst.OpCode.MUL;
+            case DIV: return BinaryInst.OpCode.SDIV;
+            case MOD: return BinaryInst.OpCode.SREM;
+            case LSS: return BinaryInst.OpCode.ICMP_SLT;
+            case LEQ: return BinaryInst.OpCode.ICMP_SLE;
+            case GRE: return BinaryInst.OpCode.ICMP_SGT;
+            case GEQ: return BinaryInst.OpCode.ICMP_SGE;
+            case EQL: return BinaryInst.OpCode.ICMP_EQ;
+            case NEQ: return BinaryInst.OpCode.ICMP_NE;
+            default: return null;
+        }
+    }
+
+    private static Integer fold(BinaryInst.OpCode opcode, int a, int b) {
+        switch (opcode) {
+            case ADD: return a + b;
+            case SUB: return a - b;
+            case MUL: return a * b;
+            case SDIV: return b == 0 ? null : a / b; // 除以0留到运行时
+            case SREM: return b == 0 ? null : a % b;
+            case ICMP_SLT: return a < b ? 1 : 0;
+            case ICMP_SLE: return a <= b ? 1 : 0;
+            case ICMP_SGT: return a > b ? 1 : 0;
+            case ICMP_SGE: return a >= b ? 1 : 0;
+            case ICMP_EQ: return a == b ? 1 : 0;
+            case ICMP_NE: return a != b ? 1 : 0;
+            default: return null;
+        }
+    }
+
+    /**
+     * 短路求值的 && / ||：求出左边后调用，之后生成的右边只在需要时执行，最后调用 endLogical 得到结果
+     */
+    public Logical beginLogical(TokenType op, Value left) {
+        Logical logical = new Logical(op == TokenType.AND);
+        Value l = value(left);
+        if (l instanceof ConstantInt) {
+            boolean nonZero = ((ConstantInt) l).getValue() != 0;
+            if (logical.isAnd != nonZero) {
+                // 左边已经决定结果，右边不会执行：生成到一个没有前驱的块里
+                logical.decided = builder.getInt32(nonZero ? 1 : 0);
+                logical.resume = builder.getCurrentBlock();
+                startBlock(newBlock());
+            }
+            return logical; // 否则结果就是右边的真假
+        }
+        logical.slot = entryAlloca(builder.getInt32Type());
+        builder.createStore(builder.getInt32(logical.isAnd ? 0 : 1), logical.slot);
+        BasicBlock rhs = newBlock();
+        logical.end = newBlock();
+        if (logical.isAnd) {
+            builder.createCondBr(condition(l), rhs, logical.end);
+        } else {
+            builder.createCondBr(condition(l), logical.end, rhs);
+        }
+        startBlock(rhs);
+        return logical;
+    }
+
+    public Value endLogical(Logical logical, Value right) {
+        if (logical.decided != null) {
+            builder.setInsertPoint(logical.resume);
+            return logical.decided;
+        }
+        Value r = truth(value(right));
+        if (logical.slot == null) {
+            return r;
+        }
+        builder.createStore(r, logical.slot);
+        builder.createBr(logical.end);
+        startBlock(logical.end);
+        return builder.createLoad(logical.slot);
+    }
+
+    // 转成0/1
+    private Value truth(Value v) {
+        if (v instanceof ConstantInt) {
+            return builder.getInt32(((ConstantInt) v).getValue() != 0 ? 1 : 0);
+        }
+        if (v instanceof ZExtInst) {
+            return v; // 比较的结果已经是0/1
+        }
+        return builder.createZExt(builder.createBinary(BinaryInst.OpCode.ICMP_NE, v, builder.getInt32(0)));
+    }
+
+    // 作为分支条件的 i1：比较的结果直接使用扩展前的值
+    private Value condition(Value v) {
+        if (v instanceof ZExtInst) {
+            ZExtInst zext = (ZExtInst) v;
+            Value source = zext.getSource();
+            // 刚生成的比较只用作条件：去掉多余的零扩展
+            BasicBlock block = builder.getCurrentBlock();
+            if (!zext.isUsed() && block.getLastInstruction() == zext) {
+                zext.eraseFromParent();
+            }
+            return source;
+        }
+        return builder.createBinary(BinaryInst.OpCode.ICMP_NE, v, builder.getInt32(0));
+    }
+
+    public Value call(Symbol symbol, List<Value> args) {
+        Value callee = symbolValueMap.get(symbol);
+        if (!(callee instanceof Function)) {
+            return builder.getInt32(0);
+        }
+        Function function = (Function) callee;
+        List<Value> actuals = new ArrayList<>();
+        for (int i = 0; i < function.getFunctionType().getParamTypes().size(); i++) {
+            actuals.add(args != null && i < args.size() ? value(args.get(i)) : builder.getInt32(0));
+        }
+        return builder.createCall(function, actuals, isVoid(function) ? "" : null);
+    }
+
+    /**
+     * printf 拆成逐个字符的 putch 和每个 %d 的 putint
+     */
+    public void printf(String format, List<Value> args) {
+        String text = format.length() >= 2 && format.startsWith("\"") && format.endsWith("\"")
+                ? format.substring(1, format.length() - 1) : format;
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int argIndex = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            int c = bytes[i] & 0xFF;
+            if (c == '\\' && i + 1 < bytes.length && bytes[i + 1] == 'n') {
+                c = '\n';
+                i++;
+            } else if (c == '%' && i + 1 < bytes.length && bytes[i + 1] == 'd') {
+                i++;
+                Value arg = args != null && argIndex < args.size() ? args.get(argIndex) : null;
+                argIndex++;
+                builder.createCall(putint, List.of(value(arg)), "");
+                continue;
+            }
+            builder.createCall(putch, List.of(builder.getInt32(c)), "");
+        }
+    }
+
+    // ----- 语句 -----
+
+    public void ret(Value value) {
+        if (isVoid(currentFunction)) {
+            builder.createRetVoid();
+        } else {
+            builder.createRet(value(value));
+        }
+        startBlock(newBlock()); // 之后的语句不可达，但仍需要一个插入位置
+    }
+
+    /**
+     * if：求出条件后调用，接着生成 then 分支
+     */
+    public Branch beginIf(Value cond) {
+        Branch branch = new Branch();
+        BasicBlock then = newBlock();
+        branch.otherwise = newBlock();
+        branch.merge = branch.otherwise;
+        jumpIf(cond, then, branch.otherwise);
+        startBlock(then);
+        return branch;
+    }
+
+    /**
+     * then 分支结束，开始生成 else 分支
+     */
+    public void beginElse(Branch branch) {
+        branch.merge = newBlock();
+        builder.createBr(branch.merge);
+        startBlock(branch.otherwise);
+    }
+
+    public void endIf(Branch branch) {
+        builder.createBr(branch.merge);
+        startBlock(branch.merge);
+    }
+
+    /**
+     * for：初始化语句生成后调用，接着生成条件。
+     * 各部分按源程序中的顺序生成：条件、更新语句、循环体，它们在各自的块中，执行顺序由跳转决定
+     */
+    public Loop beginLoop() {
+        Loop loop = new Loop();
+        loop.cond = newBlock();
+        loop.update = newBlock();
+        loop.body = newBlock();
+        loop.exit = newBlock();
+        builder.createBr(loop.cond);
+        startBlock(loop.cond);
+        return loop;
+    }
+
+    /**
+     * 条件生成后调用（没有条件时为null），接着生成更新语句
+     */
+    public void loopUpdate(Loop loop, Value cond) {
+        if (cond == null) {
+            builder.createBr(loop.body);
+        } else {
+            jumpIf(cond, loop.body, loop.exit);
+        }
+        startBlock(loop.update);
+    }
+
+    /**
+     * 更新语句生成后调用，接着生成循环体
+     */
+    public void loopBody(Loop loop) {
+        builder.createBr(loop.cond);
+        startBlock(loop.body);
+        loops.push(loop);
+    }
+
+    public void endLoop(Loop loop) {
+        loops.pop();
+        builder.createBr(loop.update);
+        startBlock(loop.exit);
+    }
+
+    public void breakLoop() {
+        if (!loops.isEmpty()) {
+            builder.createBr(loops.peek().exit);
+            startBlock(newBlock());
+        }
+    }
+
+    public void continueLoop() {
+        if (!loops.isEmpty()) {
+            builder.createBr(loops.peek().update);
+            startBlock(newBlock());
+        }
+    }
+
+    // 条件是常量时直接跳转
+    private void jumpIf(Value cond, BasicBlock ifTrue, BasicBlock ifFalse) {
+        Value v = value(cond);
+        if (v instanceof ConstantInt) {
+            builder.createBr(((ConstantInt) v).getValue() != 0 ? ifTrue : ifFalse);
+        } else {
+            builder.createCondBr(condition(v), ifTrue, ifFalse);
+        }
+    }
+
+    // ----- 基本块 -----
+
+    private BasicBlock newBlock() {
+        return new BasicBlock("b" + blockCounter++);
+    }
+
+    // 块在开始生成时才加入函数，函数中块的顺序即生成的顺序
+    private void startBlock(BasicBlock block) {
+        currentFunction.addBasicBlock(block);
+        builder.setInsertPoint(block);
+    }
+
+    private static boolean isVoid(Function function) {
+        return function.getFunctionType().getReturnType() instanceof VoidType;
+    }
+
+    private Value value(Value v) {
+        return v != null ? v : builder.getInt32(0);
+    }
+
+    // ----- 独立模式的遍历 -----
+
+    // 子节点的访问顺序与 SemanticVisitor 相同，生成的IR与融合模式一致
+    private final class Lowering implements StatementVisitor, ExpressionVisitor<Value> {
+        public void visit(VarDecl node) {
+            if (node.varDefs == null) {
+                return;
+            }
+            for (VarDef def : node.varDefs) {
+                // 数组长度是常量表达式，已经求值存入符号，不需要生成代码
+                if (currentFunction == null) {
+                    if (def.getSymbol() != null) {
+                        defineGlobal(def.getSymbol(), def); // 全局变量的初值在编译期求出
+                    }
+                    continue;
+                }
+                List<Value> init = def.initialValue == null ? null : initVal(def.initialValue);
+                if (def.getSymbol() != null) {
+                    defineLocal(def.getSymbol(), def, init);
+                }
+            }
+        }
+
+        private List<Value> initVal(InitVal node) {
+            List<Value> values = new ArrayList<>();
+            if (node.isExpression) {
+                values.add(expression(node.getSingleValue()));
+            } else if (node.getListValue() != null) {
+                for (Expression exp : node.getListValue()) {
+                    values.add(expression(exp));
+                }
+            }
+            return values;
+        }
+
+        public void visit(FuncDef node) {
+            beginFunction(analysed(node.getSymbol()));
+            if (node.getParams() != null) {
+                for (FuncParam param : node.getParams()) {
+                    defineParam(param.getSymbol());
+                }
+            }
+            visit(node.body, true);
+            endFunction();
+        }
+
+        public void visit(mainFuncDef node) {
+            beginFunction(analysed(node.getSymbol()));
+            visit(node.body, true);
+            endFunction();
+        }
+
+        private FuncSymbol analysed(FuncSymbol symbol) {
+            if (symbol == null) {
+                throw new IllegalStateException("IR generation needs a semantically analysed syntax tree");
+            }
+            return symbol;
+        }
+
+        public void visit(Block node, boolean isFunc) {
+            if (node.items != null) {
+                for (Statement item : node.items) {
+                    statement(item);
+                }
+            }
+        }
+
+        public void visit(AssignStmt node) {
+            Value index = expression(node.lval.exp);
+            Value value = expression(node.value);
+            store(node.lval, index, value);
+        }
+
+        public void visit(IfStmt node) {
+            Branch branch = beginIf(expression(node.condition));
+            statement(node.thenBranch);
+            if (node.elseBranch != null) {
+                beginElse(branch);
+                statement(node.elseBranch);
+            }
+            endIf(branch);
+        }
+
+        public void visit(ForStmt node) {
+            if (node.init != null) {
+                for (AssignStmt assignStmt : node.init) {
+                    visit(assignStmt);
+                }
+            }
+            Loop loop = beginLoop();
+            loopUpdate(loop, expression(node.condition));
+            if (node.update != null) {
+                for (AssignStmt assignStmt : node.update) {
+                    visit(assignStmt);
+                }
+            }
+            loopBody(loop);
+            statement(node.body);
+            endLoop(loop);
+        }
+
+        public void visit(ReturnStmt node) {
+            ret(expression(node.returnValue));
+        }
+
+        public void visit(BreakStmt node) {
+            breakLoop();
+        }
+
+        public void visit(ContinueStmt node) {
+            continueLoop();
+        }
+
+        public void visit(PrintfStmt node) {
+            List<Value> args = new ArrayList<>();
+            if (node.args != null) {
+                for (Expression arg : node.args) {
+                    args.add(expression(arg));
+                }
+            }
+            printf(node.formatString.value(), args);
+        }
+
+        public void visit(ExpStmt node) {
+            expression(node.expression);
+        }
+
+        private void statement(Statement node) {
+            if (node != null) {
+                node.accept(this);
+            }
+        }
+
+        private Value expression(Expression node) {
+            return node == null ? null : node.accept(this);
+        }
+
+        public Value visit(BinaryExp node) {
+            TokenType op = node.op.type();
+            if (op == TokenType.AND || op == TokenType.OR) {
+                Logical logical = beginLogical(op, expression(node.left));
+                return endLogical(logical, expression(node.right));
+            }
+            Value left = expression(node.left);
+            Value right = expression(node.right);
+            return binary(op, left, right);
+        }
+
+        public Value visit(UnaryExp node) {
+            return unary(node.op.type(), expression(node.operand));
+        }
+
+        public Value visit(LVal node) {
+            return load(node, expression(node.exp));
+        }
+
+        public Value visit(NumberLiteral node) {
+            Integer value = constEvaluator.evaluate(node);
+            return constant(value == null ? 0 : value);
+        }
+
+        public Value visit(FuncCall node) {
+            List<Value> args = new ArrayList<>();
+            if (node.args != null) {
+                for (Expression arg : node.args) {
+                    args.add(expression(arg));
+                }
+            }
+            Symbol symbol = node.getSymbol();
+            if (!(symbol instanceof FuncSymbol)) {
+                return null;
+            }
+            if (!symbolValueMap.containsKey(symbol)) {
+                bindRuntime((FuncSymbol) symbol); // 预定义的 getint 没有对应的声明节点，第一次调用时绑定
+            }
+            return call(symbol, args);
+        }
+    }
+
+    // ----- 控制流的上下文 -----
+
+    public static final class Branch {
+        private BasicBlock otherwise; // else 分支，没有 else 时就是 merge
+        private BasicBlock merge;
+    }
+
+    public static final class Loop {
+        private BasicBlock cond;
+        private BasicBlock update; // continue 的目标
+        private BasicBlock body;
+        private BasicBlock exit;   // break 的目标
+    }
+
+    public static final class Logical {
+        private final boolean isAnd;
+        private AllocaInst slot;    // 结果，左边不是常量时使用
+        private BasicBlock end;
+        private Value decided;      // 左边是常量且已决定结果
+        private BasicBlock resume;
+
+        private Logical(boolean isAnd) {
+            this.isAnd = isAnd;
+        }
+    }
+}
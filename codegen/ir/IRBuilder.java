@@ -10,14 +10,26 @@ import java.util.List;
  * IRBuilder - IR 构建器工具类，提供便捷的 IR 构建方法
  */
 public class IRBuilder {
+    private final IRContext context;
     private BasicBlock currentBlock;
     private int tempCounter = 0;
     
-    public IRBuilder() {}
+    public IRBuilder() {
+        this(new IRContext());
+    }
+
+    public IRBuilder(IRContext context) {
+        this.context = context;
+    }
     
     public IRBuilder(BasicBlock block) {
+        this();
         this.currentBlock = block;
     }
+
+    public IRContext getContext() {
+        return context;
+    }
     
     public void setInsertPoint(BasicBlock block) {
         this.currentBlock = block;
@@ -33,14 +45,17 @@ public class IRBuilder {
     }
     
     // 创建基本类型
-    public IntegerType getInt32Type() { return new IntegerType(32); }
-    public IntegerType getInt1Type() { return new IntegerType(1); }
-    public VoidType getVoidType() { return new VoidType(); }
-    public PointerType getPointerType(Type elementType) { return new PointerType(elementType); }
-    public ArrayType getArrayType(int size, Type elementType) { return new ArrayType(size, elementType); }
+    public IntegerType getInt32Type() { return context.getInt32Type(); }
+    public IntegerType getInt1Type() { return context.getInt1Type(); }
+    public VoidType getVoidType() { return context.getVoidType(); }
+    public PointerType getPointerType(Type elementType) { return context.getPointerType(elementType); }
+    public ArrayType getArrayType(int size, Type elementType) { return context.getArrayType(size, elementType); }
+    public FunctionType getFunctionType(Type returnType, List<Type> paramTypes) {
+        return context.getFunctionType(returnType, paramTypes);
+    }
     
     // 创建常量
-    public ConstantInt getInt32(int value) { return new ConstantInt(value); }
+    public ConstantInt getInt32(int value) { return context.getInt32(value); }
     
     // 创建指令并插入到当前基本块
     private void insertInstruction(Instruction inst) {
@@ -60,6 +75,13 @@ public class IRBuilder {
         return createAlloca(type, null);
     }
     
+    // 在指定基本块中 after 之后（为null时在块的开头）创建 Alloca，用于把局部变量集中到入口块开头
+    public AllocaInst createAlloca(BasicBlock block, Instruction after, Type type) {
+        AllocaInst inst = new AllocaInst(genTempName(), type);
+        block.insertAfter(inst, after);
+        return inst;
+    }
+    
     // Store 指令
     public StoreInst createStore(Value value, Value pointer) {
         StoreInst inst = new StoreInst(value, pointer);
@@ -123,6 +145,28 @@ public class IRBuilder {
         return createICmpSLT(left, right, null);
     }
     
+    public BinaryInst createSDiv(Value left, Value right) {
+        return createBinary(BinaryInst.OpCode.SDIV, left, right);
+    }
+    
+    public BinaryInst createSRem(Value left, Value right) {
+        return createBinary(BinaryInst.OpCode.SREM, left, right);
+    }
+    
+    // 任意二元运算或比较，比较的结果是 i1
+    public BinaryInst createBinary(BinaryInst.OpCode opcode, Value left, Value right) {
+        BinaryInst inst = new BinaryInst(genTempName(), opcode, left, right);
+        insertInstruction(inst);
+        return inst;
+    }
+    
+    // 零扩展 i1 -> i32
+    public ZExtInst createZExt(Value value) {
+        ZExtInst inst = new ZExtInst(genTempName(), value, getInt32Type());
+        insertInstruction(inst);
+        return inst;
+    }
+    
     // GEP 指令
     public GetElementPtrInst createGEP(Value basePtr, List<Value> indices, String name) {
         GetElementPtrInst inst = new GetElementPtrInst(name != null ? name : genTempName(), 
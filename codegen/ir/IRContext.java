@@ -0,0 +1,47 @@
+package codegen.ir;
+
+import codegen.ir.types.*;
+import codegen.ir.values.ConstantInt;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * IR 上下文 (IRContext)
+ * 常量的唯一化表：同一个上下文中值相同的常量只有一个对象，可以用 == 比较、直接作为哈希表的键。
+ * 常量是 Value，带有使用链表，因此属于一个上下文（一个 Module），不能在同时编译的模块之间共享；
+ * 类型不可变，由各类型类在整个进程范围内唯一化，这里的类型方法只是转发。
+ * 上下文不是线程安全的，一个上下文只在一个线程中使用。
+ */
+public class IRContext {
+    // 小整数直接按下标查找，其余的放在哈希表中
+    private static final int SMALL_MIN = -128;
+    private static final int SMALL_MAX = 1023;
+
+    private final ConstantInt[] smallInts = new ConstantInt[SMALL_MAX - SMALL_MIN + 1];
+    private final HashMap<Integer, ConstantInt> ints = new HashMap<>();
+
+    public ConstantInt getInt32(int value) {
+        if (value >= SMALL_MIN && value <= SMALL_MAX) {
+            int index = value - SMALL_MIN;
+            ConstantInt constant = smallInts[index];
+            if (constant == null) {
+                constant = smallInts[index] = new ConstantInt(value);
+            }
+            return constant;
+        }
+        return ints.computeIfAbsent(value, ConstantInt::new);
+    }
+
+    // ----- 类型 -----
+
+    public IntegerType getInt32Type() { return IntegerType.I32; }
+    public IntegerType getInt1Type() { return IntegerType.I1; }
+    public VoidType getVoidType() { return VoidType.VOID; }
+    public LabelType getLabelType() { return LabelType.LABEL; }
+    public PointerType getPointerType(Type elementType) { return PointerType.get(elementType); }
+    public ArrayType getArrayType(int size, Type elementType) { return ArrayType.get(size, elementType); }
+    public FunctionType getFunctionType(Type returnType, List<Type> paramTypes) {
+        return FunctionType.get(returnType, paramTypes);
+    }
+}
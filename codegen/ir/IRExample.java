@@ -6,7 +6,10 @@ import codegen.ir.values.Argument;
 import codegen.ir.values.BasicBlock;
 import codegen.ir.values.Function;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * IRExample - 演示如何使用 IR 系统构建简单的 LLVM IR
@@ -30,10 +33,10 @@ public class IRExample {
         Module module = new Module("example");
         
         // 创建 IRBuilder
-        IRBuilder builder = new IRBuilder();
+        IRBuilder builder = new IRBuilder(module.getContext());
         
         // 1. 创建 add 函数
-        FunctionType addFuncType = new FunctionType(
+        FunctionType addFuncType = builder.getFunctionType(
             builder.getInt32Type(), 
             Arrays.asList(builder.getInt32Type(), builder.getInt32Type())
         );
@@ -57,7 +60,7 @@ public class IRExample {
         module.addFunction(addFunc);
         
         // 2. 创建 main 函数
-        FunctionType mainFuncType = new FunctionType(builder.getInt32Type());
+        FunctionType mainFuncType = builder.getFunctionType(builder.getInt32Type(), List.of());
         Function mainFunc = new Function(mainFuncType, "main");
         
         BasicBlock mainEntry = new BasicBlock("entry");
@@ -89,17 +92,12 @@ public class IRExample {
         
         module.addFunction(mainFunc);
         
-        // 打印生成的 IR（简化版本）
-        System.out.println("Generated IR Module: " + module.getName());
-        System.out.println("Functions:");
-        for (Function func : module.getFunctions()) {
-            System.out.println("  Function: " + func.getName());
-            for (BasicBlock bb : func.getBlocks()) {
-                System.out.println("    BasicBlock: " + bb.getName());
-                for (Instruction inst : bb.getInstructions()) {
-                    System.out.println("      " + inst.toString());
-                }
-            }
+        // 打印生成的 IR
+        System.out.println("; Generated IR Module: " + module.getName());
+        try {
+            new IRPrinter(System.out).print(module);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
     
@@ -0,0 +1,362 @@
+package codegen.ir;
+
+import codegen.ir.inst.*;
+import codegen.ir.types.ArrayType;
+import codegen.ir.types.PointerType;
+import codegen.ir.types.Type;
+import codegen.ir.types.VoidType;
+import codegen.ir.values.*;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * IR 文本输出 (IRPrinter)
+ * 逐个片段直接写到输出中，不为每条指令拼接字符串，也不把整个模块先变成一个 String：
+ * - 类型是唯一化的，每个类型的文本只生成一次，缓存在 typeNames 中；
+ * - 整数直接按位写出；
+ * - 局部值（形参、基本块、有结果的指令）不使用对象上的名字，而是在开始输出一个函数时按定义顺序编号
+ *   （%0, %1, ...，与 LLVM 的规则相同：先是形参，再是入口块），编号表在函数输出完后丢弃，
+ *   因此输出再大，占用的内存也只与最大的一个函数有关。
+ * 写到 WritableByteChannel 时使用自己的缓冲区；写到 Writer 等 Appendable 时由调用方负责缓冲（如 BufferedWriter）。
+ */
+public final class IRPrinter {
+    private static final int BUFFER_SIZE = 64 << 10;
+
+    private final Appendable out;
+    private final Map<Type, String> typeNames = new IdentityHashMap<>();
+    private final Map<Value, Integer> slots = new IdentityHashMap<>(); // 当前函数中局部值的编号
+    private final char[] digits = new char[11];
+
+    public IRPrinter(Appendable out) {
+        this.out = out;
+    }
+
+    public IRPrinter(WritableByteChannel channel) {
+        this.out = new ChannelSink(channel);
+    }
+
+    /**
+     * 把模块写入 channel，写完后缓冲区中的内容全部写出，channel 不关闭
+     */
+    public static void print(Module module, WritableByteChannel channel) throws IOException {
+        IRPrinter printer = new IRPrinter(channel);
+        printer.print(module);
+        printer.flush();
+    }
+
+    public void flush() throws IOException {
+        if (out instanceof ChannelSink) {
+            ((ChannelSink) out).drain();
+        } else if (out instanceof Flushable) {
+            ((Flushable) out).flush();
+        }
+    }
+
+    public void print(Module module) throws IOException {
+        for (GlobalVariable global : module.getGlobals()) {
+            print(global);
+        }
+        if (!module.getGlobals().isEmpty()) {
+            out.append('\n');
+        }
+        for (Function function : module.getFunctions()) {
+            print(function);
+        }
+    }
+
+    // ----- 全局变量 -----
+
+    public void print(GlobalVariable global) throws IOException {
+        out.append('@').append(global.getName()).append(" = dso_local ")
+                .append(global.isConstant() ? "constant " : "global ");
+        Type valueType = global.getValueType();
+        type(valueType).append(' ');
+        int[] init = global.getInitializer();
+        if (!(valueType instanceof ArrayType)) {
+            number(init == null ? 0 : init[0]);
+        } else if (init == null || isAllZero(init)) {
+            out.append("zeroinitializer");
+        } else {
+            Type element = ((ArrayType) valueType).getElementType();
+            out.append('[');
+            for (int i = 0; i < init.length; i++) {
+                if (i > 0) out.append(", ");
+                type(element).append(' ');
+                number(init[i]);
+            }
+            out.append(']');
+        }
+        out.append('\n');
+    }
+
+    private static boolean isAllZero(int[] values) {
+        for (int value : values) {
+            if (value != 0) return false;
+        }
+        return true;
+    }
+
+    // ----- 函数 -----
+
+    public void print(Function function) throws IOException {
+        Type returnType = function.getFunctionType().getReturnType();
+        if (function.isDeclaration()) {
+            out.append("declare ");
+            type(returnType).append(" @").append(function.getName()).append('(');
+            boolean first = true;
+            for (Type param : function.getFunctionType().getParamTypes()) {
+                if (!first) out.append(", ");
+                type(param);
+                first = false;
+            }
+            out.append(")\n\n");
+            return;
+        }
+        numberLocals(function);
+        out.append("define dso_local ");
+        type(returnType).append(" @").append(function.getName()).append('(');
+        boolean first = true;
+        for (Argument argument : function.getArguments()) {
+            if (!first) out.append(", ");
+            typedOperand(argument);
+            first = false;
+        }
+        out.append(") {\n");
+        boolean entry = true;
+        for (BasicBlock block : function.getBlocks()) {
+            if (!entry) {
+                // 入口块的标号省略
+                out.append('\n');
+                number(slots.get(block));
+                out.append(":\n");
+            }
+            entry = false;
+            for (Instruction inst : block.getInstructions()) {
+                out.append("  ");
+                instruction(inst);
+                out.append('\n');
+            }
+        }
+        out.append("}\n\n");
+        slots.clear();
+    }
+
+    // 按定义顺序编号：形参、每个基本块、块中有结果的指令
+    private void numberLocals(Function function) {
+        slots.clear();
+        int next = 0;
+        for (Argument argument : function.getArguments()) {
+            slots.put(argument, next++);
+        }
+        for (BasicBlock block : function.getBlocks()) {
+            slots.put(block, next++);
+            for (Instruction inst : block.getInstructions()) {
+                if (!(inst.getType() instanceof VoidType)) {
+                    slots.put(inst, next++);
+                }
+            }
+        }
+    }
+
+    // ----- 指令 -----
+
+    private void instruction(Instruction inst) throws IOException {
+        if (inst instanceof BinaryInst) {
+            BinaryInst binary = (BinaryInst) inst;
+            result(inst).append(binary.getOpcode().getMnemonic()).append(' ');
+            typedOperand(binary.getLeftOperand()).append(", ");
+            operand(binary.getRightOperand());
+        } else if (inst instanceof LoadInst) {
+            result(inst).append("load ");
+            type(inst.getType()).append(", ");
+            typedOperand(((LoadInst) inst).getPointerOperand());
+        } else if (inst instanceof StoreInst) {
+            StoreInst store = (StoreInst) inst;
+            out.append("store ");
+            typedOperand(store.getValueOperand()).append(", ");
+            typedOperand(store.getPointerOperand());
+        } else if (inst instanceof AllocaInst) {
+            result(inst).append("alloca ");
+            type(((AllocaInst) inst).getAllocatedType());
+        } else if (inst instanceof GetElementPtrInst) {
+            // 不用 getIndices()，它每次新建一个列表
+            Value base = ((GetElementPtrInst) inst).getPointerOperand();
+            result(inst).append("getelementptr ");
+            type(((PointerType) base.getType()).getElementType()).append(", ");
+            typedOperand(base);
+            for (int i = 1; i < inst.getNumOperands(); i++) {
+                out.append(", ");
+                typedOperand(inst.getOperand(i));
+            }
+        } else if (inst instanceof CallInst) {
+            if (!(inst.getType() instanceof VoidType)) {
+                result(inst);
+            }
+            out.append("call ");
+            type(inst.getType()).append(' ');
+            operand(((CallInst) inst).getCallee()).append('(');
+            for (int i = 1; i < inst.getNumOperands(); i++) {
+                if (i > 1) out.append(", ");
+                typedOperand(inst.getOperand(i));
+            }
+            out.append(')');
+        } else if (inst instanceof ZExtInst) {
+            result(inst).append("zext ");
+            typedOperand(((ZExtInst) inst).getSource()).append(" to ");
+            type(inst.getType());
+        } else if (inst instanceof BranchInst) {
+            BranchInst branch = (BranchInst) inst;
+            out.append("br ");
+            if (branch.isConditional()) {
+                typedOperand(branch.getCondition()).append(", label ");
+                operand(branch.getTrueTarget()).append(", label ");
+                operand(branch.getFalseTarget());
+            } else {
+                out.append("label ");
+                operand(branch.getTarget());
+            }
+        } else if (inst instanceof ReturnInst) {
+            ReturnInst ret = (ReturnInst) inst;
+            out.append("ret ");
+            if (ret.hasReturnValue()) {
+                typedOperand(ret.getReturnValue());
+            } else {
+                out.append("void");
+            }
+        } else {
+            out.append(inst.toString()); // 新增的指令种类在这里补上之前，先用它自己的文本
+        }
+    }
+
+    // "%n = "
+    private Appendable result(Instruction inst) throws IOException {
+        operand(inst);
+        return out.append(" = ");
+    }
+
+    // ----- 操作数与类型 -----
+
+    private Appendable typedOperand(Value value) throws IOException {
+        type(value.getType()).append(' ');
+        return operand(value);
+    }
+
+    private Appendable operand(Value value) throws IOException {
+        if (value instanceof ConstantInt) {
+            number(((ConstantInt) value).getValue());
+            return out;
+        }
+        if (value instanceof GlobalVariable || value instanceof Function) {
+            return out.append('@').append(value.getName());
+        }
+        Integer slot = slots.get(value);
+        if (slot == null) {
+            return out.append('%').append(value.getName()); // 不属于当前函数的值（不应出现），按名字输出
+        }
+        out.append('%');
+        number(slot);
+        return out;
+    }
+
+    private Appendable type(Type type) throws IOException {
+        String name = typeNames.get(type);
+        if (name == null) {
+            name = type.toString();
+            typeNames.put(type, name);
+        }
+        return out.append(name);
+    }
+
+    // 直接按位写出，不经过 Integer.toString
+    private void number(int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            out.append("-2147483648");
+            return;
+        }
+        if (value < 0) {
+            out.append('-');
+            value = -value;
+        }
+        int start = digits.length;
+        do {
+            digits[--start] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = start; i < digits.length; i++) {
+            out.append(digits[i]);
+        }
+    }
+
+    // ----- 写到 channel 的缓冲区 -----
+
+    private static final class ChannelSink implements Appendable {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        ChannelSink(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public Appendable append(CharSequence text) throws IOException {
+            return append(text, 0, text.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence text, int start, int end) throws IOException {
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    // 只有名字中可能出现非ASCII字符，整段按UTF-8编码
+                    put(StandardCharsets.UTF_8.encode(CharBuffer.wrap(text, i, end)));
+                    return this;
+                }
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                buffer.put((byte) c);
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            if (c >= 0x80) {
+                return append(String.valueOf(c));
+            }
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) c);
+            return this;
+        }
+
+        private void put(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int n = Math.min(buffer.remaining(), bytes.remaining());
+                ByteBuffer slice = bytes.slice();
+                slice.limit(n);
+                buffer.put(slice);
+                bytes.position(bytes.position() + n);
+            }
+        }
+
+        void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package codegen.ir;
 import codegen.ir.values.Function;
+import codegen.ir.values.GlobalVariable;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class Module {
     private String name;
+    private final IRContext context = new IRContext(); // 本模块的常量唯一化表
     private final List<Function> functions = new ArrayList<>();
-    // private final List<GlobalVariable> globals = new ArrayList<>();
+    private final List<GlobalVariable> globals = new ArrayList<>();
 
     public Module(String name) { this.name = name; }
     
     public String getName() { return name; }
+
+    public IRContext getContext() { return context; }
     
     public void addFunction(Function func) { functions.add(func); }
     public List<Function> getFunctions() { return functions; }
+
+    public void addGlobal(GlobalVariable global) { globals.add(global); }
+    public List<GlobalVariable> getGlobals() { return globals; }
 }
\ No newline at end of file
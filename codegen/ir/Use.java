@@ -3,9 +3,17 @@ package codegen.ir;
 import codegen.ir.values.User;
 import codegen.ir.values.Value;
 
+/**
+ * 使用关系：user 的一个操作数使用了 used。
+ * Use 同时是 used 的使用链表的节点（prevUse/nextUse），链表由 Value 维护，
+ * 加入、断开都是O(1)，遍历一个值的所有使用不需要分配任何对象：
+ * for (Use use = value.getFirstUse(); use != null; use = use.getNextUse()) ...
+ */
 public class Use {
     private User user;   // 使用者
     private Value used;  // 被使用的值
+    private Use prevUse; // used 的使用链表中的前一个
+    private Use nextUse; // used 的使用链表中的后一个
 
     public Use(User user, Value used) {
         this.user = user;
@@ -19,8 +27,18 @@ public class Use {
     public User getUser() { return user; }
     public Value getUsed() { return used; }
 
+    public Use getPrevUse() { return prevUse; }
+    public Use getNextUse() { return nextUse; }
+
+    // 只由 Value 在维护使用链表时调用
+    public void setPrevUse(Use prevUse) { this.prevUse = prevUse; }
+    public void setNextUse(Use nextUse) { this.nextUse = nextUse; }
+
     // 当操作数被替换时，更新链接
     public void setUsed(Value newUsed) {
+        if (newUsed == this.used) {
+            return;
+        }
         // 1. 在旧的Value中断开链接
         if (this.used != null) {
             this.used.removeUse(this);
@@ -32,4 +50,4 @@ public class Use {
             newUsed.addUse(this);
         }
     }
-}
\ No newline at end of file
+}
@@ -8,12 +8,12 @@ public class AllocaInst extends Instruction {
     // alloca i32, align 4
     public AllocaInst(String name, Type allocatedType) {
         // Alloca指令本身返回一个指向被分配类型的指针
-        super(new PointerType(allocatedType), name);
+        super(PointerType.get(allocatedType), name);
     }
     public Type getAllocatedType() { return ((PointerType)getType()).getElementType(); }
     
     @Override
     public String toString() {
-        return getName() + " = alloca " + getAllocatedType().toString();
+        return getAsOperand() + " = alloca " + getAllocatedType().toString();
     }
 }
\ No newline at end of file
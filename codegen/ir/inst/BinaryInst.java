@@ -5,22 +5,33 @@ import codegen.ir.values.Value;
 
 // BinaryInst.java
 public class BinaryInst extends Instruction {
-    //enum尚未完成
-    public enum OpCode { ADD, SUB, MUL, SDIV, SREM, ICMP_SLT, ICMP_SGT}
+    public enum OpCode {
+        ADD("add"), SUB("sub"), MUL("mul"), SDIV("sdiv"), SREM("srem"),
+        ICMP_SLT("icmp slt"), ICMP_SGT("icmp sgt"), ICMP_SLE("icmp sle"), ICMP_SGE("icmp sge"),
+        ICMP_EQ("icmp eq"), ICMP_NE("icmp ne");
+
+        private final String mnemonic;
+
+        OpCode(String mnemonic) {
+            this.mnemonic = mnemonic;
+        }
+
+        public String getMnemonic() {
+            return mnemonic;
+        }
+    }
     private final OpCode opcode;
     
     public BinaryInst(String name, OpCode opcode, Value op1, Value op2) {
         // 算术运算返回i32，比较运算返回i1
-        super(BinaryInst.isCompare(opcode) ? new IntegerType(1) : new IntegerType(32), name);
+        super(BinaryInst.isCompare(opcode) ? IntegerType.I1 : IntegerType.I32, name);
         this.opcode = opcode;
         addOperand(op1);
         addOperand(op2);
     }
-    // ... isCompare(opcode) 辅助方法 ...
-    //尚未完成
     public static boolean isCompare(OpCode opcode) {
         //找出比较运算符
-        return opcode == OpCode.ICMP_SGT || opcode == OpCode.ICMP_SLT;
+        return opcode.ordinal() >= OpCode.ICMP_SLT.ordinal();
     }
     public OpCode getOpcode() { return opcode; }
     
@@ -29,8 +40,9 @@ public class BinaryInst extends Instruction {
     
     @Override
     public String toString() {
-        return getName() + " = " + opcode.toString().toLowerCase() + " " + 
-               getType().toString() + " " + 
+        // 比较指令的结果是i1，打印的是操作数的类型
+        return getAsOperand() + " = " + opcode.getMnemonic() + " " +
+               getLeftOperand().getType().toString() + " " + 
                getLeftOperand().getAsOperand() + ", " + 
                getRightOperand().getAsOperand();
     }
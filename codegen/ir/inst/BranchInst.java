@@ -13,13 +13,13 @@ public class BranchInst extends Instruction {
     
     // 无条件分支构造函数
     public BranchInst(BasicBlock target) {
-        super(new VoidType(), ""); // Branch指令没有返回值
+        super(VoidType.VOID, ""); // Branch指令没有返回值
         addOperand(target);
     }
     
     // 条件分支构造函数
     public BranchInst(Value condition, BasicBlock trueTarget, BasicBlock falseTarget) {
-        super(new VoidType(), "");
+        super(VoidType.VOID, "");
         addOperand(condition);
         addOperand(trueTarget);
         addOperand(falseTarget);
@@ -70,7 +70,7 @@ public class BranchInst extends Instruction {
         if (isUnconditional()) {
             return "br label " + getTarget().getAsOperand();
         } else {
-            return "br " + getCondition().toString() + 
+            return "br " + getCondition().getTypedOperand() + 
                    ", label " + getTrueTarget().getAsOperand() + 
                    ", label " + getFalseTarget().getAsOperand();
         }
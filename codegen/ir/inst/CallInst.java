@@ -71,7 +71,7 @@ public class CallInst extends Instruction {
         
         // 如果有返回值，添加赋值部分
         if (getName() != null && !getName().isEmpty()) {
-            sb.append(getName()).append(" = ");
+            sb.append(getAsOperand()).append(" = ");
         }
         
         sb.append("call ").append(getType().toString()).append(" ");
@@ -81,7 +81,7 @@ public class CallInst extends Instruction {
         List<Value> args = getArguments();
         for (int i = 0; i < args.size(); i++) {
             if (i > 0) sb.append(", ");
-            sb.append(args.get(i).toString());
+            sb.append(args.get(i).getTypedOperand());
         }
         
         sb.append(")");
@@ -44,7 +44,7 @@ public class GetElementPtrInst extends Instruction {
         }
         
         // GEP 总是返回指针类型
-        return new PointerType(currentType);
+        return PointerType.get(currentType);
     }
     
     public Value getPointerOperand() {
@@ -62,7 +62,7 @@ public class GetElementPtrInst extends Instruction {
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        sb.append(getName()).append(" = getelementptr ");
+        sb.append(getAsOperand()).append(" = getelementptr ");
         
         // 添加基础类型信息
         Value basePtr = getPointerOperand();
@@ -71,11 +71,11 @@ public class GetElementPtrInst extends Instruction {
             sb.append(elementType.toString()).append(", ");
         }
         
-        sb.append(basePtr.toString());
+        sb.append(basePtr.getTypedOperand());
         
         // 添加索引
         for (Value index : getIndices()) {
-            sb.append(", ").append(index.toString());
+            sb.append(", ").append(index.getTypedOperand());
         }
         
         return sb.toString();
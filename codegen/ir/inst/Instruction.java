@@ -4,8 +4,15 @@ import codegen.ir.values.BasicBlock;
 import codegen.ir.types.Type;
 import codegen.ir.values.User;
 
+/**
+ * 指令基类
+ * 指令本身就是所在基本块指令链表的节点（prev/next），插入、删除、移动都是O(1)，
+ * 不需要在块中查找指令的位置。
+ */
 public abstract class Instruction extends User {
     private BasicBlock parent; // 指令所属的基本块
+    private Instruction prev;  // 块中的前一条指令
+    private Instruction next;  // 块中的后一条指令
 
     public Instruction(Type type, String name) {
         super(type, name);
@@ -13,4 +20,45 @@ public abstract class Instruction extends User {
 
     public BasicBlock getParent() { return parent; }
     public void setParent(BasicBlock parent) { this.parent = parent; }
-}
\ No newline at end of file
+
+    public Instruction getPrev() { return prev; }
+    public Instruction getNext() { return next; }
+
+    // 只由 BasicBlock 在维护链表时调用
+    public void setPrev(Instruction prev) { this.prev = prev; }
+    public void setNext(Instruction next) { this.next = next; }
+
+    // 插入到 pos 之前，与 pos 在同一个块中；指令此前不能在任何块中
+    public void insertBefore(Instruction pos) {
+        pos.getParent().insertBefore(this, pos);
+    }
+
+    // 插入到 pos 之后
+    public void insertAfter(Instruction pos) {
+        pos.getParent().insertAfter(this, pos);
+    }
+
+    // 移到 pos 之前，可以跨块
+    public void moveBefore(Instruction pos) {
+        removeFromParent();
+        insertBefore(pos);
+    }
+
+    public void moveAfter(Instruction pos) {
+        removeFromParent();
+        insertAfter(pos);
+    }
+
+    // 从所在块中摘下，保留操作数，之后可以再插入
+    public void removeFromParent() {
+        if (parent != null) {
+            parent.remove(this);
+        }
+    }
+
+    // 从所在块中删除，并断开对操作数的使用
+    public void eraseFromParent() {
+        removeFromParent();
+        dropAllReferences();
+    }
+}
@@ -28,7 +28,7 @@ public class LoadInst extends Instruction {
     
     @Override
     public String toString() {
-        return getName() + " = load " + getType().toString() + ", " + 
-               getPointerOperand().toString();
+        return getAsOperand() + " = load " + getType().toString() + ", " + 
+               getPointerOperand().getTypedOperand();
     }
 }
@@ -11,7 +11,7 @@ public class ReturnInst extends Instruction {
     
     // 有返回值的构造函数
     public ReturnInst(Value returnValue) {
-        super(new VoidType(), ""); // Return指令本身没有返回值
+        super(VoidType.VOID, ""); // Return指令本身没有返回值
         if (returnValue != null) {
             addOperand(returnValue);
         }
@@ -37,7 +37,7 @@ public class ReturnInst extends Instruction {
     public String toString() {
         if (hasReturnValue()) {
             Value retVal = getReturnValue();
-            return "ret " + retVal.toString();
+            return "ret " + retVal.getTypedOperand();
         } else {
             return "ret void";
         }
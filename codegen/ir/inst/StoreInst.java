@@ -6,7 +6,7 @@ import codegen.ir.values.Value;
 // StoreInst.java
 public class StoreInst extends Instruction {
     public StoreInst(Value value, Value pointer) {
-        super(new VoidType(), ""); // Store没有返回值，名字也无意义
+        super(VoidType.VOID, ""); // Store没有返回值，名字也无意义
         addOperand(value);   // 第0个操作数是 value
         addOperand(pointer); // 第1个操作数是 pointer
     }
@@ -15,7 +15,7 @@ public class StoreInst extends Instruction {
     
     @Override
     public String toString() {
-        return "store " + getValueOperand().toString() + ", " + 
-               getPointerOperand().toString();
+        return "store " + getValueOperand().getTypedOperand() + ", " + 
+               getPointerOperand().getTypedOperand();
     }
 }
\ No newline at end of file
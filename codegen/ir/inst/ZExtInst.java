@@ -0,0 +1,25 @@
+package codegen.ir.inst;
+
+import codegen.ir.types.Type;
+import codegen.ir.values.Value;
+
+/**
+ * ZExtInst - 零扩展，把比较结果 i1 变成 i32
+ * 例如: %t2 = zext i1 %t1 to i32
+ */
+public class ZExtInst extends Instruction {
+
+    public ZExtInst(String name, Value value, Type targetType) {
+        super(targetType, name);
+        addOperand(value);
+    }
+
+    public Value getSource() {
+        return getOperand(0);
+    }
+
+    @Override
+    public String toString() {
+        return getAsOperand() + " = zext " + getSource().getTypedOperand() + " to " + getType().toString();
+    }
+}
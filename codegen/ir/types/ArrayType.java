@@ -1,18 +1,28 @@
 package codegen.ir.types;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 public class ArrayType extends Type {
+    private record Key(int size, Type elementType) {}
+
+    private static final ConcurrentHashMap<Key, ArrayType> ARRAYS = new ConcurrentHashMap<>();
+
     private final int size;
     private final Type elementType;
 
-    public ArrayType(int size, Type elementType) {
+    private ArrayType(int size, Type elementType) {
         this.size = size;
         this.elementType = elementType;
     }
 
+    public static ArrayType get(int size, Type elementType) {
+        return ARRAYS.computeIfAbsent(new Key(size, elementType), key -> new ArrayType(key.size(), key.elementType()));
+    }
+
     public int getSize() { return size; }
     public Type getElementType() { return elementType; }
 
-    // 例如: new ArrayType(10, new IntegerType(32)) -> "[10 x i32]"
+    // 例如: ArrayType.get(10, IntegerType.I32) -> "[10 x i32]"
     @Override
     public String toString() { return "[" + size + " x " + elementType.toString() + "]"; }
-}
\ No newline at end of file
+}
@@ -1,20 +1,28 @@
 package codegen.ir.types;
 
 import java.util.List;
-import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class FunctionType extends Type {
+    private record Key(Type returnType, List<Type> paramTypes) {}
+
+    private static final ConcurrentHashMap<Key, FunctionType> FUNCTIONS = new ConcurrentHashMap<>();
+
     private final Type returnType;
     private final List<Type> paramTypes;
 
-    public FunctionType(Type returnType, List<Type> paramTypes) {
+    private FunctionType(Type returnType, List<Type> paramTypes) {
         this.returnType = returnType;
-        this.paramTypes = new ArrayList<>(paramTypes);
+        this.paramTypes = paramTypes;
     }
 
-    public FunctionType(Type returnType) {
-        this.returnType = returnType;
-        this.paramTypes = new ArrayList<>();
+    public static FunctionType get(Type returnType, List<Type> paramTypes) {
+        return FUNCTIONS.computeIfAbsent(new Key(returnType, List.copyOf(paramTypes)),
+                key -> new FunctionType(key.returnType(), key.paramTypes()));
+    }
+
+    public static FunctionType get(Type returnType) {
+        return get(returnType, List.of());
     }
 
     public Type getReturnType() { return returnType; }
@@ -1,12 +1,26 @@
 package codegen.ir.types;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 public class IntegerType extends Type {
+    public static final IntegerType I1 = new IntegerType(1);   // 用于布尔值
+    public static final IntegerType I32 = new IntegerType(32);
+    private static final ConcurrentHashMap<Integer, IntegerType> OTHERS = new ConcurrentHashMap<>();
+
     private final int bits;
 
-    public IntegerType(int bits) { this.bits = bits; }
+    private IntegerType(int bits) { this.bits = bits; }
+
+    public static IntegerType get(int bits) {
+        if (bits == 32) return I32;
+        if (bits == 1) return I1;
+        return OTHERS.computeIfAbsent(bits, IntegerType::new);
+    }
+
+    public int getBits() { return bits; }
 
-    // 例如: new IntegerType(32) -> "i32"
-    //       new IntegerType(1)  -> "i1" (用于布尔值)
+    // 例如: IntegerType.I32 -> "i32"
+    //       IntegerType.I1  -> "i1" (用于布尔值)
     @Override
     public String toString() { return "i" + bits; }
-}
\ No newline at end of file
+}
@@ -1,6 +1,10 @@
 package codegen.ir.types;
 
 public class LabelType extends Type {
+    public static final LabelType LABEL = new LabelType();
+
+    private LabelType() {}
+
     @Override
     public String toString() { return "label"; }
-}
\ No newline at end of file
+}
@@ -1,13 +1,22 @@
 package codegen.ir.types;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 public class PointerType extends Type {
+    // 元素类型已经唯一化，按元素类型的对象身份查找
+    private static final ConcurrentHashMap<Type, PointerType> POINTERS = new ConcurrentHashMap<>();
+
     private final Type elementType; // 指针指向的元素的类型
 
-    public PointerType(Type elementType) { this.elementType = elementType; }
+    private PointerType(Type elementType) { this.elementType = elementType; }
+
+    public static PointerType get(Type elementType) {
+        return POINTERS.computeIfAbsent(elementType, PointerType::new);
+    }
     
     public Type getElementType() { return elementType; }
 
-    // 例如: new PointerType(new IntegerType(32)) -> "i32*"
+    // 例如: PointerType.get(IntegerType.I32) -> "i32*"
     @Override
     public String toString() { return elementType.toString() + "*"; }
-}
\ No newline at end of file
+}
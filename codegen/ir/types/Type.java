@@ -1,7 +1,17 @@
 package codegen.ir.types;
 
+/**
+ * 类型基类
+ * 类型是不可变的，并且全部唯一化：结构相同的类型只有一个对象（见各子类的 get 方法），
+ * 因此类型的比较直接用 ==，也可以直接作为哈希表的键。
+ */
 public abstract class Type {
+    // 指向这个类型的指针类型
+    public PointerType getPointerTo() {
+        return PointerType.get(this);
+    }
+
     // 强制所有子类实现 toString()，以便后续打印IR时能得到正确的类型字符串
     @Override
     public abstract String toString();
-}
\ No newline at end of file
+}
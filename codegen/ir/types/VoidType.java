@@ -1,6 +1,10 @@
 package codegen.ir.types;
 
 public class VoidType extends Type {
+    public static final VoidType VOID = new VoidType();
+
+    private VoidType() {}
+
     @Override
     public String toString() { return "void"; }
-}
\ No newline at end of file
+}
@@ -2,36 +2,122 @@ package codegen.ir.values;
 import codegen.ir.inst.Instruction;
 import codegen.ir.types.LabelType;
 
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.NoSuchElementException;
 
+/**
+ * 基本块
+ * 指令链表是侵入式的：链表节点就是指令本身（Instruction.prev/next），块只记录首尾，
+ * 在任意位置插入、删除都是O(1)。
+ */
 public class BasicBlock extends Value {
     private Function parent;
-    private final List<Instruction> instructions = new LinkedList<>();
+    private Instruction head; // 第一条指令
+    private Instruction tail; // 最后一条指令
+    private int instructionCount;
     
     // CFG 支持：前驱和后继基本块
     private final List<BasicBlock> predecessors = new ArrayList<>();
     private final List<BasicBlock> successors = new ArrayList<>();
 
     public BasicBlock(String name) {
-        super(new LabelType(), name); // 基本块的类型是Label
+        super(LabelType.LABEL, name); // 基本块的类型是Label
     }
     
     public void addInstruction(Instruction inst) {
-        instructions.add(inst);
-        inst.setParent(this);
+        insertAfter(inst, tail);
+    }
+
+    /**
+     * 按顺序遍历指令。遍历中可以删除或移走当前指令（包括通过 Iterator.remove），
+     * 迭代器在返回一条指令之前已经记下了它的后继；不能删除当前指令的后继。
+     */
+    public Iterable<Instruction> getInstructions() {
+        return () -> new Iterator<Instruction>() {
+            private Instruction following = head;
+            private Instruction current;
+
+            @Override
+            public boolean hasNext() {
+                return following != null;
+            }
+
+            @Override
+            public Instruction next() {
+                if (following == null) {
+                    throw new NoSuchElementException();
+                }
+                current = following;
+                following = following.getNext();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                if (current == null) {
+                    throw new IllegalStateException();
+                }
+                current.removeFromParent();
+                current = null;
+            }
+        };
+    }
+
+    public int getInstructionCount() { return instructionCount; }
+
+    public boolean isEmpty() { return head == null; }
+
+    // ----- 链表操作：指令此前不能在任何块中 -----
+
+    // 插入到 pos 之前，pos 为null时插在末尾
+    public void insertBefore(Instruction inst, Instruction pos) {
+        if (pos == null) {
+            insertAfter(inst, tail);
+            return;
+        }
+        link(inst, pos.getPrev(), pos);
     }
 
-    public List<Instruction> getInstructions() { return instructions; }
+    // 插入到 pos 之后，pos 为null时插在开头
+    public void insertAfter(Instruction inst, Instruction pos) {
+        link(inst, pos, pos == null ? head : pos.getNext());
+    }
+
+    // 从块中摘下指令，不改变它的操作数
+    public void remove(Instruction inst) {
+        if (inst.getParent() != this) {
+            throw new IllegalArgumentException("instruction is not in block " + getName());
+        }
+        Instruction prev = inst.getPrev();
+        Instruction next = inst.getNext();
+        if (prev == null) head = next; else prev.setNext(next);
+        if (next == null) tail = prev; else next.setPrev(prev);
+        inst.setPrev(null);
+        inst.setNext(null);
+        inst.setParent(null);
+        instructionCount--;
+    }
+
+    private void link(Instruction inst, Instruction prev, Instruction next) {
+        if (inst.getParent() != null) {
+            throw new IllegalStateException("instruction is already in block " + inst.getParent().getName());
+        }
+        inst.setParent(this);
+        inst.setPrev(prev);
+        inst.setNext(next);
+        if (prev == null) head = inst; else prev.setNext(inst);
+        if (next == null) tail = inst; else next.setPrev(inst);
+        instructionCount++;
+    }
     
     public Function getParent() { return parent; }
     public void setParent(Function parent) { this.parent = parent; }
     
     // 获取最后一条指令，它必须是终结者指令
     public Instruction getTerminator() {
-        if (instructions.isEmpty()) return null;
-        return instructions.get(instructions.size() - 1);
+        return tail;
     }
     
     // CFG 相关方法
@@ -63,7 +149,7 @@ public class BasicBlock extends Value {
     
     // 检查是否有终结者指令
     public boolean hasTerminator() {
-        return !instructions.isEmpty() && isTerminator(getTerminator());
+        return isTerminator(tail);
     }
     
     // 判断指令是否是终结者指令
@@ -75,19 +161,17 @@ public class BasicBlock extends Value {
     
     // 获取第一条指令
     public Instruction getFirstInstruction() {
-        return instructions.isEmpty() ? null : instructions.get(0);
+        return head;
     }
-    
-    // 在指定位置插入指令
-    public void insertInstruction(int index, Instruction inst) {
-        instructions.add(index, inst);
-        inst.setParent(this);
+
+    public Instruction getLastInstruction() {
+        return tail;
     }
     
     // 在终结者指令前插入指令
     public void insertBeforeTerminator(Instruction inst) {
         if (hasTerminator()) {
-            insertInstruction(instructions.size() - 1, inst);
+            insertBefore(inst, tail);
         } else {
             addInstruction(inst);
         }
@@ -5,8 +5,9 @@ import codegen.ir.types.IntegerType;
 public class ConstantInt extends Constant {
     private final int value;
 
+    // 通过 IRContext.getInt32 获取，同一个上下文中值相同的常量是同一个对象
     public ConstantInt(int value) {
-        super(new IntegerType(32)); // 所有int常量都是i32类型
+        super(IntegerType.I32); // 所有int常量都是i32类型
         this.value = value;
     }
     
@@ -24,4 +24,12 @@ public class Function extends Value {
     public List<Argument> getArguments() { return arguments; }
     public List<BasicBlock> getBlocks() { return blocks; }
     public BasicBlock getEntryBlock() { return blocks.isEmpty() ? null : blocks.get(0); }
+
+    // 没有基本块的函数只是声明，如运行库函数 getint
+    public boolean isDeclaration() { return blocks.isEmpty(); }
+
+    public FunctionType getFunctionType() { return (FunctionType) getType(); }
+
+    @Override
+    public String getAsOperand() { return "@" + getName(); }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package codegen.ir.values;
+
+import codegen.ir.types.ArrayType;
+import codegen.ir.types.PointerType;
+import codegen.ir.types.Type;
+
+/**
+ * GlobalVariable - 全局变量（包括局部的 static 变量）
+ * 和 alloca 一样，它的值是指向存储的指针
+ * 例如: @a = dso_local global [3 x i32] [i32 1, i32 2, i32 0]
+ */
+public class GlobalVariable extends Value {
+    private final boolean isConstant;
+    private final int[] initializer; // 展开后的初值，为null时全部是0
+
+    public GlobalVariable(String name, Type valueType, boolean isConstant, int[] initializer) {
+        super(PointerType.get(valueType), name);
+        this.isConstant = isConstant;
+        this.initializer = initializer;
+    }
+
+    public Type getValueType() { return ((PointerType) getType()).getElementType(); }
+    public boolean isConstant() { return isConstant; }
+    public int[] getInitializer() { return initializer; }
+
+    @Override
+    public String getAsOperand() { return "@" + getName(); }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getAsOperand()).append(" = dso_local ").append(isConstant ? "constant " : "global ");
+        Type valueType = getValueType();
+        sb.append(valueType.toString()).append(" ");
+        if (!(valueType instanceof ArrayType)) {
+            sb.append(initializer == null ? 0 : initializer[0]);
+        } else if (initializer == null || isAllZero(initializer)) {
+            sb.append("zeroinitializer");
+        } else {
+            sb.append("[");
+            for (int i = 0; i < initializer.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append("i32 ").append(initializer[i]);
+            }
+            sb.append("]");
+        }
+        return sb.toString();
+    }
+
+    private static boolean isAllZero(int[] values) {
+        for (int value : values) {
+            if (value != 0) return false;
+        }
+        return true;
+    }
+}
@@ -25,6 +25,13 @@ public class User extends Value {
         return operands.size();
     }
 
+    // 断开对所有操作数的使用（指令被删除时）
+    public void dropAllReferences() {
+        for (Use use : operands) {
+            use.setUsed(null);
+        }
+    }
+
     // 关键：添加操作数时，建立Use关系
     protected void addOperand(Value value) {
         Use use = new Use(this, value);
@@ -2,29 +2,81 @@ package codegen.ir.values;
 import codegen.ir.types.Type;
 import codegen.ir.Use;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 public abstract class Value {
     protected Type type;
     protected String name;
 
-    // 关键：记录所有对这个Value的"使用"
-    protected final List<Use> useList = new LinkedList<>();
+    // 关键：记录所有对这个Value的"使用"。侵入式链表，节点就是 Use 本身，新的使用加在表头
+    private Use firstUse;
+    private int numUses;
 
     public Value(Type type, String name) {
         this.type = type;
         this.name = name;
     }
 
-    public void addUse(Use use) { useList.add(use); }
-    public void removeUse(Use use) { useList.remove(use); }
+    // 由 Use 在建立、断开链接时调用，O(1)
+    public void addUse(Use use) {
+        use.setPrevUse(null);
+        use.setNextUse(firstUse);
+        if (firstUse != null) {
+            firstUse.setPrevUse(use);
+        }
+        firstUse = use;
+        numUses++;
+    }
+
+    public void removeUse(Use use) {
+        Use prev = use.getPrevUse();
+        Use next = use.getNextUse();
+        if (prev == null) firstUse = next; else prev.setNextUse(next);
+        if (next != null) next.setPrevUse(prev);
+        use.setPrevUse(null);
+        use.setNextUse(null);
+        numUses--;
+    }
+
+    public boolean isUsed() { return firstUse != null; }
+    public boolean hasOneUse() { return firstUse != null && firstUse.getNextUse() == null; }
+    public int getNumUses() { return numUses; }
+
+    // 使用链表的表头，配合 Use.getNextUse 遍历，不分配对象
+    public Use getFirstUse() { return firstUse; }
+
+    /**
+     * 遍历所有使用。迭代器先记下后继再返回当前的使用，遍历中可以替换当前使用的值
+     */
+    public Iterable<Use> getUses() {
+        return () -> new Iterator<Use>() {
+            private Use following = firstUse;
+
+            @Override
+            public boolean hasNext() {
+                return following != null;
+            }
+
+            @Override
+            public Use next() {
+                if (following == null) {
+                    throw new NoSuchElementException();
+                }
+                Use current = following;
+                following = following.getNextUse();
+                return current;
+            }
+        };
+    }
 
     // 替换所有对我的使用
     public void replaceAllUsesWith(Value newValue) {
-        while (!useList.isEmpty()) {
-            Use use = useList.get(0);
-            use.setUsed(newValue); // 让使用者更新它的操作数
+        if (newValue == this) {
+            return;
+        }
+        while (firstUse != null) {
+            firstUse.setUsed(newValue); // 让使用者更新它的操作数，同时从链表中断开
         }
     }
 
@@ -40,6 +92,11 @@ public abstract class Value {
         return toString();
     }
     
+    // 带类型的操作数，如 "i32 %t1"；指令的 toString 是整条指令，作为操作数打印时要用这个
+    public String getTypedOperand() {
+        return getType().toString() + " " + getAsOperand();
+    }
+    
     @Override
     public String toString() {
         return getType().toString() + " " + getAsOperand();
@@ -0,0 +1,137 @@
+package error;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 错误收集器 (ErrorSink)
+ * 按行号组织：lines[行号] 是该行的错误，插入时就处于输出顺序，不需要最后再排序。
+ * 同一行内按阶段（词法、语法、语义）排列，同一阶段按加入的先后；
+ * 与紧挨着的前一条错误相同（同一阶段、同一行、同一类型）的错误在插入时丢弃。
+ * 输出与“全部收集后按行号稳定排序、再去掉相邻的重复项”完全一致，而各阶段的错误可以交错地加入。
+ * 可以限制保留的条数：只保留按输出顺序的前 limit 条，超出时丢弃最后的错误。
+ */
+public class ErrorSink {
+    private final int limit; // 最多保留的错误条数，0表示不限
+    private CompilerError[][] lines = new CompilerError[64][];
+    private int[] counts = new int[64];
+    private int size;
+    private int maxLine = -1; // 有错误的最大行号
+
+    public ErrorSink() {
+        this(0);
+    }
+
+    public ErrorSink(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * @return 错误是否被保留（重复的错误或超出限制的错误不保留）
+     */
+    public boolean add(CompilerError error) {
+        int line = Math.max(error.getLineNum(), 0);
+        int phase = phaseOf(error);
+        if (limit > 0 && size >= limit && !before(line, phase)) {
+            return false; // 已满，且排在所有已保留的错误之后
+        }
+        ensureLine(line);
+        CompilerError[] row = lines[line];
+        int count = counts[line];
+        // 插入位置：本行中阶段不大于它的错误之后
+        int at = count;
+        while (at > 0 && phaseOf(row[at - 1]) > phase) {
+            at--;
+        }
+        if (at > 0 && row[at - 1].equals(error)) {
+            return false;
+        }
+        if (row == null) {
+            row = lines[line] = new CompilerError[2];
+        } else if (count == row.length) {
+            row = lines[line] = Arrays.copyOf(row, count * 2);
+        }
+        System.arraycopy(row, at, row, at + 1, count - at);
+        row[at] = error;
+        counts[line] = count + 1;
+        size++;
+        maxLine = Math.max(maxLine, line);
+        if (limit > 0 && size > limit) {
+            removeLast();
+        }
+        return true;
+    }
+
+    public void addAll(Collection<? extends CompilerError> errors) {
+        for (CompilerError error : errors) {
+            add(error);
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按输出顺序的全部错误
+     */
+    public List<CompilerError> toList() {
+        List<CompilerError> list = new ArrayList<>(size);
+        for (int line = 0; line <= maxLine; line++) {
+            for (int i = 0; i < counts[line]; i++) {
+                list.add(lines[line][i]);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 输出 error.txt：每行一条错误
+     */
+    public void writeTo(PrintWriter writer) {
+        for (int line = 0; line <= maxLine; line++) {
+            for (int i = 0; i < counts[line]; i++) {
+                writer.println(lines[line][i]);
+            }
+        }
+    }
+
+    // 行号为line、阶段为phase的错误是否排在最后一条已保留的错误之前
+    private boolean before(int line, int phase) {
+        if (line != maxLine) {
+            return line < maxLine;
+        }
+        return phase < phaseOf(lines[maxLine][counts[maxLine] - 1]);
+    }
+
+    private void removeLast() {
+        counts[maxLine]--;
+        lines[maxLine][counts[maxLine]] = null;
+        size--;
+        while (maxLine >= 0 && counts[maxLine] == 0) {
+            maxLine--;
+        }
+    }
+
+    private void ensureLine(int line) {
+        if (line >= lines.length) {
+            int capacity = Math.max(line + 1, lines.length * 2);
+            lines = Arrays.copyOf(lines, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+    }
+
+    // 同一行内的排列顺序，与编译器依次汇总词法、语法、语义错误的顺序一致
+    private static int phaseOf(CompilerError error) {
+        if (error instanceof LexerError) return 0;
+        if (error instanceof SyntaxError) return 1;
+        return 2;
+    }
+}
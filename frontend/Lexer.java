@@ -2,65 +2,89 @@ package frontend;
 
 import error.LexerError;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.List;
 
 /**
  * 词法分析器类 (Lexer)
- * 采用单例模式
+ * 每次编译创建一个实例，实例之间不共享可变状态，多个文件可以并发进行词法分析。
+ * 直接扫描源程序的UTF-8字节（可以是内存映射的文件，见 SourceFile），不先解码成字符；
+ * SysY的单词都由ASCII字符组成，只有遇到非ASCII字节时才解码出完整的字符再判断。
  */
 public class Lexer {
-    // --- 单例模式实现 ---
-    private static final Lexer instance = new Lexer();
-    private Lexer() {}
-    public static Lexer getInstance() {
-        return instance;
+    // 关键字的文本，按TokenType序号索引，不可变，所有实例共享
+    private static final String[] KEYWORD_TEXT = new String[TokenType.values().length];
+    static {
+        KEYWORD_TEXT[TokenType.CONSTTK.ordinal()] = "const";
+        KEYWORD_TEXT[TokenType.INTTK.ordinal()] = "int";
+        KEYWORD_TEXT[TokenType.STATICTK.ordinal()] = "static";
+        KEYWORD_TEXT[TokenType.BREAKTK.ordinal()] = "break";
+        KEYWORD_TEXT[TokenType.CONTINUETK.ordinal()] = "continue";
+        KEYWORD_TEXT[TokenType.IFTK.ordinal()] = "if";
+        KEYWORD_TEXT[TokenType.MAINTK.ordinal()] = "main";
+        KEYWORD_TEXT[TokenType.ELSETK.ordinal()] = "else";
+        KEYWORD_TEXT[TokenType.FORTK.ordinal()] = "for";
+        KEYWORD_TEXT[TokenType.RETURNTK.ordinal()] = "return";
+        KEYWORD_TEXT[TokenType.VOIDTK.ordinal()] = "void";
+        KEYWORD_TEXT[TokenType.PRINTFTK.ordinal()] = "printf";
     }
 
     //数据成员
-    private String source;          // 源程序字符串
-    private char[] sourceChars;     // 源程序的字符数组，提高访问效率
-    private int curPos;             // 当前字符串位置指针
+    private final ByteBuffer source;      // 源程序的UTF-8字节
+    private final int sourceLength;       // 源程序的字节数
+    private int curPos;             // 当前字节位置指针
+    private int decodedLength;      // 最近一次 decodeAt() 解码出的字符占用的字节数
 
-    private String token;           // 解析出的单词值
+    private String token;           // 解析出的单词值，标识符/常量按需构造，见 getToken()
     private TokenType tokenType;    // 解析出的单词类型
+    private int tokenStart;         // 单词在源程序中的起始字节下标
+    private int tokenLength;        // 单词在源程序中的字节数
+    private int nameId;             // 如果是IDENFR，这是它在名字池中的编号
     private int lineNum;            // 当前行号
     private int number;             // 如果是INTCON，这是它的数值
 
-    private final Map<String, TokenType> reserveWords = new HashMap<>(); // 保留字表
+    private final NamePool names;   // 标识符名字池
     private final List<LexerError> errors = new ArrayList<>();
 
     /**
-     * 初始化词法分析器
+     * 创建词法分析器
      * @param sourceCode 源代码字符串
      */
-    public void init(String sourceCode) {
-        this.source = sourceCode;
-        this.sourceChars = sourceCode.toCharArray();
-        this.curPos = 0;//当前位置
-        this.lineNum = 1; // 行号从1开始
-        this.errors.clear();//清空错误列表
-        initReserveWords();
+    public Lexer(String sourceCode) {
+        this(sourceCode, new NamePool());
     }
 
     /**
-     * 初始化保留字（关键字）表
+     * 创建词法分析器，标识符驻留到给定的名字池中
+     * @param sourceCode 源代码字符串
+     * @param names 本次编译共用的名字池
+     */
+    public Lexer(String sourceCode, NamePool names) {
+        this(ByteBuffer.wrap(sourceCode.getBytes(StandardCharsets.UTF_8)), names);
+    }
+
+    /**
+     * 在UTF-8编码的源程序字节上创建词法分析器
+     * @param source 源程序字节，从下标0到limit()
+     * @param names 本次编译共用的名字池
+     */
+    public Lexer(ByteBuffer source, NamePool names) {
+        this(source, names, 0, 1); // 行号从1开始
+    }
+
+    /**
+     * 从源程序中间开始词法分析，用于增量分析只重新分析被修改的部分
+     * @param startOffset 开始位置，必须是某个单词的结束位置（或0）
+     * @param startLine 开始位置所在的行号
      */
-    private void initReserveWords() {
-        reserveWords.put("const", TokenType.CONSTTK);
-        reserveWords.put("int", TokenType.INTTK);
-        reserveWords.put("static", TokenType.STATICTK);
-        reserveWords.put("break", TokenType.BREAKTK);
-        reserveWords.put("continue", TokenType.CONTINUETK);
-        reserveWords.put("if", TokenType.IFTK);
-        reserveWords.put("main", TokenType.MAINTK);
-        reserveWords.put("else", TokenType.ELSETK);
-        reserveWords.put("for", TokenType.FORTK);
-        reserveWords.put("return", TokenType.RETURNTK);
-        reserveWords.put("void", TokenType.VOIDTK);
-        reserveWords.put("printf", TokenType.PRINTFTK);
+    public Lexer(ByteBuffer source, NamePool names, int startOffset, int startLine) {
+        this.names = names;
+        this.source = source;
+        this.sourceLength = source.limit();
+        this.curPos = startOffset;//当前位置
+        this.lineNum = startLine;
     }
 
     /**
@@ -69,25 +93,32 @@ public class Lexer {
     public void next() {
         //错误时需要记录
         // 清空上一个token的信息
-        token = "";
+        token = null;
         number = 0;
+        nameId = -1;
+        tokenLength = -1;
 
         // 1. 跳过空白字符（空格、tab、回车、换行）
         skipWhitespace();
+        tokenStart = curPos;
 
         // 2. 检查是否到达文件末尾
-        if (curPos >= sourceChars.length) {
+        if (curPos >= sourceLength) {
             tokenType = TokenType.EOF;
+            tokenLength = 0;
             return;
         }
 
         char currentChar = peek();
+        // 非ASCII字节：解码出完整字符再判断类别
+        int codePoint = currentChar < 0x80 ? currentChar : decodeAt(curPos);
 
         // 3. 状态机逻辑：根据当前字符判断Token类型
-        if (Character.isLetter(currentChar) || currentChar == '_') {
+        if ((currentChar >= 'a' && currentChar <= 'z') || (currentChar >= 'A' && currentChar <= 'Z')
+                || currentChar == '_' || (currentChar >= 0x80 && Character.isLetter(codePoint))) {
             // 可能是标识符或关键字
             parseIdentifierOrKeyword();
-        } else if (Character.isDigit(currentChar)) {
+        } else if (Character.isDigit(codePoint)) {
             // 肯定是数字
             parseIntConst();
         } else if (currentChar == '"') {
@@ -97,96 +128,179 @@ public class Lexer {
             // 可能是运算符、分界符或注释
             parseOperatorOrDelimiter();
         }
+        // 注释后递归分析出的单词已经设置好了区间
+        if (tokenLength < 0) {
+            tokenLength = curPos - tokenStart;
+        }
+    }
+
+    /**
+     * 根据单词的类型和在源程序中的区间得到单词值。
+     * 只有标识符、整数常量、字符串常量和非法字符需要构造新的String，
+     * 其余单词的值都是固定的字符串常量。
+     */
+    String text(TokenType type, int offset, int length, int nameId) {
+        switch (type) {
+            case IDENFR:
+                return names.get(nameId);
+            case INTCON:
+            case STRCON:
+            case ERROR:
+                // 只有这里才把字节解码成字符，ASCII以外的字符通常只出现在字符串常量中
+                if (source.hasArray()) {
+                    return new String(source.array(), source.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+                }
+                byte[] bytes = new byte[length];
+                source.get(offset, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            case EOF:
+                return "";
+            default:
+                return type.isKeyword() ? KEYWORD_TEXT[type.ordinal()] : type.getValue();
+        }
     }
 
     private void parseIdentifierOrKeyword() {
-        StringBuilder sb = new StringBuilder();
-        
-        // 1. 循环读取字母、数字、下划线
-        while (curPos < sourceChars.length && 
-               (Character.isLetterOrDigit(peek()) || peek() == '_')) {
-            sb.append(get());
+        int start = curPos;
+
+        // 1. ASCII快速路径：直接移动下标，不构造StringBuilder
+        while (curPos < sourceLength && isAsciiIdentifierPart(peek())) {
+            curPos++;
         }
-        
-        // 2. 将StringBuilder转为String
-        token = sb.toString();
-        
-        // 3. 查reserveWords表，如果存在，tokenType就是对应的关键字类型
-        if (reserveWords.containsKey(token)) {
-            tokenType = reserveWords.get(token);
+        // SysY标识符只含ASCII字符，遇到非ASCII字母/数字时退回解码后的通用判断，保持原有行为
+        boolean ascii = true;
+        if (curPos < sourceLength && peek() >= 0x80) {
+            while (curPos < sourceLength) {
+                int c = decodeAt(curPos);
+                if (!Character.isLetterOrDigit(c) && c != '_') {
+                    break;
+                }
+                ascii &= c < 0x80;
+                curPos += decodedLength;
+            }
+        }
+        int length = curPos - start;
+
+        // 2. 按 长度+首字符 最多只有一个候选关键字，比较一次即可确定
+        TokenType keyword = ascii ? keywordCandidate(length, byteAt(start)) : null;
+        if (keyword != null && regionEquals(start, KEYWORD_TEXT[keyword.ordinal()])) {
+            token = KEYWORD_TEXT[keyword.ordinal()];
+            tokenType = keyword;
         } else {
-            // 4. 如果不存在，tokenType就是IDENFR
+            // 3. 不是关键字，tokenType就是IDENFR，名字经名字池驻留，String按需取用
+            if (ascii) {
+                nameId = names.intern(source, start, length);
+            } else {
+                byte[] bytes = new byte[length];
+                source.get(start, bytes);
+                nameId = names.intern(new String(bytes, StandardCharsets.UTF_8));
+            }
             tokenType = TokenType.IDENFR;
         }
     }
 
+    /**
+     * 关键字的完美哈希：SysY的12个关键字按 (长度, 首字符) 两两不同
+     */
+    private static TokenType keywordCandidate(int length, char first) {
+        switch (length) {
+            case 2:
+                return first == 'i' ? TokenType.IFTK : null;
+            case 3:
+                return first == 'i' ? TokenType.INTTK : first == 'f' ? TokenType.FORTK : null;
+            case 4:
+                return first == 'm' ? TokenType.MAINTK : first == 'e' ? TokenType.ELSETK
+                        : first == 'v' ? TokenType.VOIDTK : null;
+            case 5:
+                return first == 'c' ? TokenType.CONSTTK : first == 'b' ? TokenType.BREAKTK : null;
+            case 6:
+                return first == 's' ? TokenType.STATICTK : first == 'r' ? TokenType.RETURNTK
+                        : first == 'p' ? TokenType.PRINTFTK : null;
+            case 8:
+                return first == 'c' ? TokenType.CONTINUETK : null;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isAsciiIdentifierPart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    // 比较源程序从start开始的一段是否等于text（调用方已保证长度相同）
+    private boolean regionEquals(int start, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (byteAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void parseIntConst() {
-        StringBuilder sb = new StringBuilder();
-        
-        // 1. 循环读取数字
-        while (curPos < sourceChars.length && Character.isDigit(peek())) {
-            sb.append(get());
+        int start = curPos;
+
+        // 1. 循环读取数字，同时直接计算数值
+        long value = 0;
+        while (curPos < sourceLength) {
+            char c = peek();
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+                curPos++;
+            } else if (c >= 0x80 && Character.isDigit(decodeAt(curPos))) {
+                digit = Character.digit(decodeAt(curPos), 10);
+                curPos += decodedLength;
+            } else {
+                break;
+            }
+            if (value <= Integer.MAX_VALUE) {
+                value = value * 10 + digit;
+            }
         }
-        
-        // 2. 将StringBuilder转为String
-        token = sb.toString();
-        
-        // 3. 使用Integer.parseInt()转换为数值，存入number字段
-        try {
-            number = Integer.parseInt(token);
-        } catch (NumberFormatException e) {
+
+        // 2. 存入number字段，值超过int范围时记录错误
+        if (value <= Integer.MAX_VALUE) {
+            number = (int) value;
+        } else {
             // 如果数字过大，设置为最大值并记录错误
             number = Integer.MAX_VALUE;
             errors.add(new LexerError(lineNum, "number_overflow"));
         }
-        
+
         // 4. tokenType设为INTCON
         tokenType = TokenType.INTCON;
     }
 
     private void parseStringConst() {
-        StringBuilder sb = new StringBuilder();
-        
+        // 字符串常量的值就是源程序中从开头引号到结束引号的原文（转义序列原样保留），
+        // 因此只需扫描出区间，最后构造一次String
+        int start = curPos;
+        int end = -1; // 源程序在反斜杠处结束时，这个反斜杠不计入字符串
+
         // 1. 跳过开头的 "
         get(); // 消耗开头的引号
-        sb.append('"');
-        
+
         // 2. 循环读取字符直到下一个 "
-        while (curPos < sourceChars.length) {
-            char c = peek();
+        while (curPos < sourceLength) {
+            char c = get();
             if (c == '"') {
                 // 找到结束引号
-                get(); // 消耗结束引号
-                sb.append('"');
                 break;
             } else if (c == '\\') {
-                // 3. 处理转义字符
-                get(); // 消耗反斜杠
-                if (curPos < sourceChars.length) {
-                    char nextChar = get();
-                    if (nextChar == 'n') {
-                        sb.append("\\n");
-                    } else if (nextChar == 't') {
-                        sb.append("\\t");
-                    } else if (nextChar == '\\') {
-                        sb.append("\\\\");
-                    } else if (nextChar == '"') {
-                        sb.append("\\\"");
-                    } else {
-                        // 其他转义字符
-                        sb.append('\\').append(nextChar);
-                    }
+                // 3. 转义字符：连同后一个字符一起跳过
+                if (curPos < sourceLength) {
+                    get();
+                } else {
+                    end = curPos - 1;
                 }
             } else if (c == '\n') {
                 // 字符串中不应该有未转义的换行符
                 lineNum++;
-                sb.append(get());
-            } else {
-                sb.append(get());
             }
         }
-        
-        token = sb.toString();
+
+        tokenLength = (end < 0 ? curPos : end) - start;
         // 4. tokenType设为STRCON
         tokenType = TokenType.STRCON;
     }
@@ -324,24 +438,41 @@ public class Lexer {
                 tokenType = TokenType.RBRACE;
                 break;
             default:
-                // 未知符号，作为错误处理
-                token = String.valueOf(c);
+                // 未知符号，作为错误处理；非ASCII字符要把整个字符的字节都消耗掉
+                if (c >= 0x80) {
+                    decodeAt(curPos - 1);
+                    curPos += decodedLength - 1;
+                }
                 tokenType = TokenType.ERROR;
                 break;
         }
     }
 
+    public NamePool getNamePool() {
+        return names;
+    }
+
     public List<LexerError> getErrors() {
         return this.errors;
     }
 
     //辅助方法
     private void skipWhitespace() {
-        while (curPos < sourceChars.length && Character.isWhitespace(sourceChars[curPos])) {
-            if (sourceChars[curPos] == '\n') {
-                lineNum++;
+        while (curPos < sourceLength) {
+            char c = peek();
+            if (c < 0x80) {
+                if (!Character.isWhitespace(c)) {
+                    break;
+                }
+                if (c == '\n') {
+                    lineNum++;
+                }
+                curPos++;
+            } else if (Character.isWhitespace(decodeAt(curPos))) {
+                curPos += decodedLength;
+            } else {
+                break;
             }
-            curPos++;
         }
     }
 
@@ -350,7 +481,7 @@ public class Lexer {
         get(); // 消耗第二个 '/'
         
         // 从当前位置一直向后扫描，直到遇到'\n'或文件末尾
-        while (curPos < sourceChars.length && peek() != '\n') {
+        while (curPos < sourceLength && peek() != '\n') {
             get();
         }
         // 注意：不消耗换行符，让skipWhitespace处理它以正确更新行号
@@ -361,7 +492,7 @@ public class Lexer {
         get(); // 消耗 '*'
         
         // 从当前位置一直向后扫描，直到遇到 "*/"
-        while (curPos < sourceChars.length - 1) {
+        while (curPos < sourceLength - 1) {
             char current = get();
             if (current == '\n') {
                 lineNum++; // 更新行号
@@ -377,8 +508,8 @@ public class Lexer {
      * 预读一个字符，但不移动指针
      */
     private char peek() {
-        if (curPos < sourceChars.length) {
-            return sourceChars[curPos];
+        if (curPos < sourceLength) {
+            return byteAt(curPos);
         }
         return '\0'; // 表示文件结束
     }
@@ -387,18 +518,81 @@ public class Lexer {
      * 读取一个字符，并移动指针
      */
     private char get() {
-        if (curPos < sourceChars.length) {
-            return sourceChars[curPos++];
+        if (curPos < sourceLength) {
+            return byteAt(curPos++);
         }
         return '\0'; // 表示文件结束
     }
 
 
+    /**
+     * 读取一个字节，当作字符返回：ASCII字节就是对应的字符，非ASCII字节返回0x80~0xFF，
+     * 不会与任何ASCII字符相等
+     */
+    private char byteAt(int pos) {
+        return (char) (source.get(pos) & 0xFF);
+    }
+
+    /**
+     * 解码从pos开始的一个UTF-8字符，返回码点，占用的字节数记录在decodedLength中。
+     * 非法的编码当作一个字节的U+FFFD，与 new String(bytes, UTF_8) 的替换行为一致
+     */
+    private int decodeAt(int pos) {
+        int b0 = source.get(pos) & 0xFF;
+        int length;
+        int codePoint;
+        if (b0 < 0x80) {
+            decodedLength = 1;
+            return b0;
+        } else if (b0 >= 0xC2 && b0 <= 0xDF) {
+            length = 2;
+            codePoint = b0 & 0x1F;
+        } else if (b0 >= 0xE0 && b0 <= 0xEF) {
+            length = 3;
+            codePoint = b0 & 0x0F;
+        } else if (b0 >= 0xF0 && b0 <= 0xF4) {
+            length = 4;
+            codePoint = b0 & 0x07;
+        } else {
+            decodedLength = 1;
+            return 0xFFFD;
+        }
+        if (pos + length > sourceLength) {
+            decodedLength = 1;
+            return 0xFFFD;
+        }
+        for (int i = 1; i < length; i++) {
+            int b = source.get(pos + i) & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                decodedLength = 1;
+                return 0xFFFD;
+            }
+            codePoint = (codePoint << 6) | (b & 0x3F);
+        }
+        decodedLength = length;
+        return codePoint;
+    }
+
     //接口
     public String getToken() {
+        if (token == null) {
+            token = text(tokenType, tokenStart, tokenLength, nameId);
+        }
         return token;
     }
 
+    public int getTokenStart() {
+        return tokenStart;
+    }
+
+    public int getTokenLength() {
+        return tokenLength;
+    }
+
+    public int getNameId() {
+        return nameId;
+    }
+
     public TokenType getTokenType() {
         return tokenType;
     }
@@ -0,0 +1,122 @@
+package frontend;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 名字池 (NamePool)
+ * 同一次编译中所有标识符共用的驻留表：同名标识符只创建一个String，
+ * 并分配一个从0开始的连续编号，后续阶段可以直接用编号代替字符串。
+ * 查找直接在源程序字节的区间上进行，命中时不产生任何新对象。
+ * 一次编译独占一个实例，不做线程同步。
+ */
+public class NamePool {
+    private static final int INITIAL_CAPACITY = 256; // 必须是2的幂
+
+    private String[] names = new String[INITIAL_CAPACITY / 2]; // 编号 -> 名字
+    private int[] hashes = new int[INITIAL_CAPACITY / 2];      // 编号 -> 哈希值
+    private int[] slots = new int[INITIAL_CAPACITY];           // 开放定址表，存 编号+1，0 表示空
+    private int size;
+
+    /**
+     * 驻留源程序中 [offset, offset+length) 区间的标识符，区间内只能是ASCII字节
+     * @return 标识符的编号
+     */
+    public int intern(ByteBuffer source, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + source.get(i); // ASCII字节即字符，与String.hashCode()一致
+        }
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && regionEquals(names[id], source, offset, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        byte[] bytes = new byte[length];
+        source.get(offset, bytes);
+        return add(new String(bytes, StandardCharsets.US_ASCII), hash, slot);
+    }
+
+    /**
+     * 驻留一个不来自源程序的名字（如库函数 getint）
+     * @return 名字的编号
+     */
+    public int intern(String name) {
+        int hash = name.hashCode();
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && names[id].equals(name)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(name, hash, slot);
+    }
+
+    /**
+     * 根据编号取回名字
+     */
+    public String get(int id) {
+        return names[id];
+    }
+
+    /**
+     * 已驻留的名字个数，编号范围是 [0, size)
+     */
+    public int size() {
+        return size;
+    }
+
+    private int add(String name, int hash, int slot) {
+        int id = size++;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        names[id] = name;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        // 装载因子超过1/2时扩容并重新散列
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        int[] bigger = new int[slots.length * 2];
+        int mask = bigger.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (bigger[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            bigger[slot] = id + 1;
+        }
+        slots = bigger;
+    }
+
+    // 打散低位，避免相近的标识符挤在一起
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean regionEquals(String name, ByteBuffer source, int offset, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != source.get(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,39 @@
+package frontend;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 源文件读取 (SourceFile)
+ * 把源文件的UTF-8字节直接交给词法分析器，不再先解码成String、再复制成char[]。
+ * 小文件整体读入一个字节数组；大文件用只读内存映射，由操作系统按页调入，
+ * 不在Java堆上占用与文件等大的空间。
+ */
+public final class SourceFile {
+    // 小于这个大小的文件直接读入，映射的固定开销（系统调用、页表）此时不划算
+    private static final long MAP_THRESHOLD = 1 << 20;
+
+    private SourceFile() {
+    }
+
+    /**
+     * 读取源文件，返回从下标0开始、limit()为文件长度的字节缓冲区
+     */
+    public static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MAP_THRESHOLD) {
+                return ByteBuffer.wrap(Files.readAllBytes(path));
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("source file too large: " + path);
+            }
+            // 映射建立后即使关闭通道也仍然有效
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+}
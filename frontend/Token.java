@@ -1,3 +1,6 @@
 package frontend;
 
-public record Token(TokenType type, String value, int lineNum) {}
+/**
+ * 语法树中保存的Token，nameId 是标识符在名字池中的编号，其他Token为-1
+ */
+public record Token(TokenType type, String value, int lineNum, int nameId) {}
@@ -0,0 +1,156 @@
+package frontend;
+
+/**
+ * Token缓冲区 (TokenBuffer)
+ * 以"数组结构"紧凑地存放Token：类型序号存在byte[]中，行号、源程序区间存在int[]中，
+ * 不为每个Token创建对象。单词值只在需要时才从源程序区间构造（见 value()），
+ * 分界符、运算符、关键字的值是固定的字符串常量，不产生任何新对象。
+ *
+ * Token用从0开始的绝对下标访问。底层是一个环形数组：
+ * 流式分析时调用 release() 丢弃已经用不到的Token，内存与前瞻长度成正比；
+ * 不调用 release() 时就是整个文件的Token表，可以随机访问。
+ */
+public class TokenBuffer {
+    private static final int INITIAL_CAPACITY = 16; // 必须是2的幂
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final Lexer lexer;
+    private byte[] types;
+    private int[] lines;
+    private int[] offsets;
+    private int[] lengths;
+    private int[] nameIds;
+
+    private int start;          // 仍保留的最早的Token的下标
+    private int end;            // 下一个要写入的Token的下标
+    private boolean complete;   // 是否已经读到了EOF
+
+    public TokenBuffer(Lexer lexer) {
+        this.lexer = lexer;
+        this.types = new byte[INITIAL_CAPACITY];
+        this.lines = new int[INITIAL_CAPACITY];
+        this.offsets = new int[INITIAL_CAPACITY];
+        this.lengths = new int[INITIAL_CAPACITY];
+        this.nameIds = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * 一次性读入整个文件的Token
+     */
+    public static TokenBuffer readAll(Lexer lexer) {
+        TokenBuffer buffer = new TokenBuffer(lexer);
+        while (!buffer.complete) {
+            buffer.readNext();
+        }
+        return buffer;
+    }
+
+    /**
+     * 保证下标为index的Token已经读入
+     * @return 该Token存在时返回true，index越过EOF时返回false
+     */
+    public boolean fill(int index) {
+        while (index >= end && !complete) {
+            readNext();
+        }
+        return index < end;
+    }
+
+    /**
+     * 丢弃下标小于index的Token，之后不能再访问它们
+     */
+    public void release(int index) {
+        if (index > start) {
+            start = Math.min(index, end);
+        }
+    }
+
+    /**
+     * 已经读入的Token总数（EOF也算一个）
+     */
+    public int size() {
+        return end;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public TokenType type(int index) {
+        return TYPES[types[index & (types.length - 1)]];
+    }
+
+    public int line(int index) {
+        return lines[index & (lines.length - 1)];
+    }
+
+    public int offset(int index) {
+        return offsets[index & (offsets.length - 1)];
+    }
+
+    public int length(int index) {
+        return lengths[index & (lengths.length - 1)];
+    }
+
+    /**
+     * 标识符在名字池中的编号，其他Token为-1
+     */
+    public int nameId(int index) {
+        return nameIds[index & (nameIds.length - 1)];
+    }
+
+    /**
+     * 单词值，只有IDENFR/INTCON/STRCON（以及非法字符）会构造String
+     */
+    public String value(int index) {
+        return lexer.text(type(index), offset(index), length(index), nameId(index));
+    }
+
+    /**
+     * 把一个Token物化成对象，供语法树节点保存
+     */
+    public Token token(int index) {
+        return new Token(type(index), value(index), line(index), nameId(index));
+    }
+
+    private void readNext() {
+        if (end - start == types.length) {
+            grow();
+        }
+        lexer.next();
+        int slot = end & (types.length - 1);
+        types[slot] = (byte) lexer.getTokenType().ordinal();
+        lines[slot] = lexer.getLineNum();
+        offsets[slot] = lexer.getTokenStart();
+        lengths[slot] = lexer.getTokenLength();
+        nameIds[slot] = lexer.getNameId();
+        end++;
+        if (lexer.getTokenType() == TokenType.EOF) {
+            complete = true;
+        }
+    }
+
+    // 扩容时保持 "下标 & mask" 的映射关系，把仍保留的Token搬到新数组中
+    private void grow() {
+        int capacity = types.length * 2;
+        byte[] newTypes = new byte[capacity];
+        int[] newLines = new int[capacity];
+        int[] newOffsets = new int[capacity];
+        int[] newLengths = new int[capacity];
+        int[] newNameIds = new int[capacity];
+        for (int i = start; i < end; i++) {
+            int from = i & (types.length - 1);
+            int to = i & (capacity - 1);
+            newTypes[to] = types[from];
+            newLines[to] = lines[from];
+            newOffsets[to] = offsets[from];
+            newLengths[to] = lengths[from];
+            newNameIds[to] = nameIds[from];
+        }
+        types = newTypes;
+        lines = newLines;
+        offsets = newOffsets;
+        lengths = newLengths;
+        nameIds = newNameIds;
+    }
+}
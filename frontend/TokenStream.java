@@ -0,0 +1,168 @@
+package frontend;
+
+/**
+ * Token流 (TokenStream)
+ * 语法分析器通过它读取Token。查看Token类型和行号直接读 TokenBuffer 中的数组，不分配对象；
+ * 只有需要保存到语法树中的Token才通过 current() 物化。
+ *
+ * 从 Lexer 创建时按需拉取Token，并随着分析推进丢弃已消费的Token，
+ * 词法分析与语法分析交替进行，Token占用的内存与前瞻长度成正比，而不是与源文件长度成正比。
+ *
+ * 也可以只在一个完整Token缓冲区的某个窗口上分析（见 ParallelParser），
+ * 窗口之后的Token都当作EOF，并记录分析是否读到了窗口之外。
+ */
+public class TokenStream {
+    private final TokenBuffer buffer;
+    private final boolean streaming; // 是否丢弃已消费的Token
+    private int pos;                 // 当前Token的下标
+    private final int limit;         // 窗口的结束下标（不含），不限制时为Integer.MAX_VALUE
+    private final boolean limitIsEof; // 窗口恰好结束在文件末尾
+    private boolean pastLimit;       // 是否读过窗口之外的真实Token
+
+    public TokenStream(Lexer lexer) {
+        this(new TokenBuffer(lexer), true);
+    }
+
+    /**
+     * 在一个已有的Token缓冲区上分析，保留全部Token
+     */
+    public TokenStream(TokenBuffer buffer) {
+        this(buffer, false);
+    }
+
+    /**
+     * 只在缓冲区的 [from, to) 窗口上分析，缓冲区必须已经完整读入（见 TokenBuffer.readAll）。
+     * 窗口之前的Token仍可用于行号（previousLine），窗口之后的Token都当作EOF
+     */
+    public TokenStream(TokenBuffer buffer, int from, int to) {
+        this.buffer = buffer;
+        this.streaming = false;
+        this.pos = from;
+        this.limit = to;
+        this.limitIsEof = buffer.type(to) == TokenType.EOF;
+    }
+
+    private TokenStream(TokenBuffer buffer, boolean streaming) {
+        this.buffer = buffer;
+        this.streaming = streaming;
+        this.limit = Integer.MAX_VALUE;
+        this.limitIsEof = false;
+        buffer.fill(0);
+    }
+
+    /**
+     * 分析过程是否查看过窗口之外的Token（文件末尾的EOF除外）。
+     * 没有时，窗口内的分析结果与在整个文件上分析到同一位置的结果相同
+     */
+    public boolean readPastLimit() {
+        return pastLimit;
+    }
+
+    // 访问了窗口结束位置及之后的Token
+    private void touchLimit() {
+        if (!limitIsEof) {
+            pastLimit = true;
+        }
+    }
+
+    /**
+     * 查看未来第k个token的类型（不移动指针），超出文件末尾返回EOF
+     */
+    public TokenType peek(int k) {
+        if (pos + k >= limit) {
+            touchLimit();
+            return TokenType.EOF;
+        }
+        if (!buffer.fill(pos + k)) {
+            return TokenType.EOF;
+        }
+        return buffer.type(pos + k);
+    }
+
+    /**
+     * 当前token的行号
+     */
+    public int currentLine() {
+        if (pos >= limit) {
+            touchLimit();
+        }
+        return buffer.line(pos);
+    }
+
+    /**
+     * 上一个被消费的token的行号，还没有消费过token时返回当前token的行号
+     */
+    public int previousLine() {
+        return buffer.line(pos > 0 ? pos - 1 : pos);
+    }
+
+    /**
+     * 当前token的下标（从0开始，EOF也算一个token）
+     */
+    public int position() {
+        return pos;
+    }
+
+    /**
+     * 当前token在源程序中的起始字节下标
+     */
+    public int currentOffset() {
+        if (pos >= limit) {
+            touchLimit();
+        }
+        return buffer.offset(pos);
+    }
+
+    /**
+     * 上一个被消费的token在源程序中的结束字节下标，还没有消费过token时返回当前token的起始下标
+     */
+    public int previousEnd() {
+        return pos > 0 ? buffer.offset(pos - 1) + buffer.length(pos - 1) : buffer.offset(pos);
+    }
+
+    /**
+     * 当前token的单词值
+     */
+    public String currentValue() {
+        if (pos >= limit) {
+            touchLimit();
+        }
+        return buffer.value(pos);
+    }
+
+    /**
+     * 把当前token物化成对象
+     */
+    public Token current() {
+        if (pos >= limit) {
+            touchLimit();
+        }
+        return buffer.token(pos);
+    }
+
+    /**
+     * 前进一个token，停在EOF上不再移动
+     */
+    public void advance() {
+        if (peek(0) == TokenType.EOF) {
+            return;
+        }
+        pos++;
+        buffer.fill(pos);
+        if (streaming) {
+            buffer.release(pos - 1); // 保留上一个token，用于缺失符号错误的行号
+        }
+    }
+
+    /**
+     * 把剩余的源程序全部词法分析完，
+     * 语法分析提前结束时（如main函数之后还有内容）仍能收集到全部词法错误
+     */
+    public void drain() {
+        while (buffer.fill(buffer.size())) {
+            if (streaming) {
+                buffer.release(buffer.size() - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package parser;
+
+import frontend.TokenStream;
+import frontend.TokenType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 只计数的监听器，用于统计语法分析的规模：
+ * 各类终结符的个数、各语法成分的个数。不读取单词值，也不产生输出。
+ */
+public class CountingParseListener implements ParseListener {
+    private final int[] tokenCounts = new int[TokenType.values().length];
+    private final Map<String, Integer> componentCounts = new HashMap<>();
+    private int tokenTotal;
+    private int componentTotal;
+
+    @Override
+    public void token(TokenType type, TokenStream tokens) {
+        tokenCounts[type.ordinal()]++;
+        tokenTotal++;
+    }
+
+    @Override
+    public void syntaxComponent(String name) {
+        componentCounts.merge(name, 1, Integer::sum);
+        componentTotal++;
+    }
+
+    /**
+     * 消费的终结符总数
+     */
+    public int getTokenCount() {
+        return tokenTotal;
+    }
+
+    /**
+     * 某类终结符的个数
+     */
+    public int getTokenCount(TokenType type) {
+        return tokenCounts[type.ordinal()];
+    }
+
+    /**
+     * 语法成分总数
+     */
+    public int getComponentCount() {
+        return componentTotal;
+    }
+
+    /**
+     * 某个语法成分的个数，如 getComponentCount("Stmt")
+     */
+    public int getComponentCount(String name) {
+        return componentCounts.getOrDefault(name, 0);
+    }
+
+    public Map<String, Integer> getComponentCounts() {
+        return componentCounts;
+    }
+
+    /**
+     * 加上另一个监听器的计数（并行分析时合并各分段的统计）
+     */
+    public void add(CountingParseListener other) {
+        for (int i = 0; i < tokenCounts.length; i++) {
+            tokenCounts[i] += other.tokenCounts[i];
+        }
+        other.componentCounts.forEach((name, count) -> componentCounts.merge(name, count, Integer::sum));
+        tokenTotal += other.tokenTotal;
+        componentTotal += other.componentTotal;
+    }
+}
@@ -0,0 +1,315 @@
+package parser;
+
+import ast.Declaration;
+import ast.topLevelNodes.CompUnit;
+import ast.topLevelNodes.SourceSpan;
+import ast.topLevelNodes.mainFuncDef;
+import error.CompilerError;
+import error.LexerError;
+import error.SyntaxError;
+import frontend.Lexer;
+import frontend.NamePool;
+import frontend.TokenBuffer;
+import frontend.TokenStream;
+import frontend.TokenType;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量语法分析 (IncrementalParser)
+ * 供编辑器集成使用：每次修改后传入新的完整源程序，只重新词法、语法分析被修改的顶层成分，
+ * 其余顶层成分的语法树原样复用（它们之后的行号变化记录在 SourceSpan.lineShift 中）。
+ *
+ * 做法：比较新旧源程序的公共前缀和公共后缀，得到被修改的区间；
+ * 从被修改区间之前最后一个完整的顶层成分之后开始重新分析，
+ * 直到重新分析的位置恰好落在公共后缀中某个旧顶层成分的开头，之后的顶层成分全部复用。
+ * 重新分析出的顶层成分如果token序列与原来的相同（如只修改了空白或注释），仍复用原来的子树。
+ *
+ * 同一个实例的各次分析共用一个名字池。
+ */
+public class IncrementalParser {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // 一个顶层成分的分析结果。declaration为null的是最后一项：主函数之后（或文件末尾无法识别）的剩余部分
+    private static class Item {
+        final Declaration declaration;
+        final SourceSpan span;
+        final List<LexerError> lexerErrors;   // 行号为语法树中的行号
+        final List<SyntaxError> syntaxErrors; // 行号为语法树中的行号
+        // 分析该成分时读到的最远token的结束位置（前瞻可能越过成分本身），此前的内容不变时分析结果不变
+        final int lookaheadEnd;
+
+        Item(Declaration declaration, SourceSpan span, List<LexerError> lexerErrors, List<SyntaxError> syntaxErrors,
+             int lookaheadEnd) {
+            this.declaration = declaration;
+            this.span = span;
+            this.lexerErrors = lexerErrors;
+            this.syntaxErrors = syntaxErrors;
+            this.lookaheadEnd = lookaheadEnd;
+        }
+
+        Item shifted(int offsetDelta, int lineDelta) {
+            return new Item(declaration, span.shifted(offsetDelta, lineDelta), lexerErrors, syntaxErrors,
+                    lookaheadEnd + offsetDelta);
+        }
+    }
+
+    private final NamePool names = new NamePool();
+    private ByteBuffer source;
+    private List<Item> items;
+    private CompUnit unit;
+    private int reparsedCount;
+
+    /**
+     * 完整分析一个源程序
+     */
+    public CompUnit parse(ByteBuffer newSource) {
+        List<Item> newItems = new ArrayList<>();
+        reparsedCount = 0;
+        parseFrom(newSource, 0, 1, newItems, false, -1, 0);
+        return accept(newSource, newItems);
+    }
+
+    /**
+     * 分析修改后的源程序，只重新分析受修改影响的顶层成分
+     */
+    public CompUnit update(ByteBuffer newSource) {
+        if (unit == null) {
+            return parse(newSource);
+        }
+        int oldLength = source.limit();
+        int newLength = newSource.limit();
+        int minLength = Math.min(oldLength, newLength);
+        // 1. 公共前缀与公共后缀之间是被修改的区间：旧源程序中的 [prefix, oldLength - suffix)
+        int prefix = 0;
+        while (prefix < minLength && source.get(prefix) == newSource.get(prefix)) {
+            prefix++;
+        }
+        if (prefix == oldLength && oldLength == newLength) {
+            source = newSource;
+            reparsedCount = 0;
+            return unit;
+        }
+        int suffix = 0;
+        while (suffix < minLength - prefix
+                && source.get(oldLength - 1 - suffix) == newSource.get(newLength - 1 - suffix)) {
+            suffix++;
+        }
+        int editEnd = oldLength - suffix;
+        int delta = newLength - oldLength;
+
+        // 2. 第一个受影响的顶层成分：读到的最远位置不早于被修改区间的开头（最后的剩余部分总是满足）
+        int first = 0;
+        while (items.get(first).lookaheadEnd < prefix) {
+            first++;
+        }
+        int startOffset = first == 0 ? 0 : items.get(first - 1).span.end;
+        int startLine = first == 0 ? 1 : items.get(first - 1).span.actualLastLine();
+
+        // 3. 从startOffset开始重新分析，直到与公共后缀中某个旧顶层成分的开头对齐
+        List<Item> newItems = new ArrayList<>(items.subList(0, first));
+        reparsedCount = 0;
+        boolean afterMain = first > 0 && items.get(first - 1).declaration instanceof mainFuncDef;
+        int syncIndex = parseFrom(newSource, startOffset, startLine, newItems, afterMain, editEnd, delta);
+        int lineDelta = 0;
+        if (syncIndex >= 0) {
+            Item placeholder = newItems.remove(newItems.size() - 1);
+            lineDelta = placeholder.span.actualFirstLine() - items.get(syncIndex).span.actualFirstLine();
+        }
+        // 4. 重新分析出的顶层成分中，token序列没有变化的复用原来的子树
+        int freshEnd = Math.min(newItems.size(), syncIndex >= 0 ? syncIndex : items.size());
+        for (int i = first; i < freshEnd; i++) {
+            Item fresh = newItems.get(i);
+            Item old = items.get(i);
+            if (fresh.declaration != null && old.declaration != null
+                    && fresh.span.tokenHash == old.span.tokenHash
+                    && fresh.declaration.getClass() == old.declaration.getClass()) {
+                // 错误取新分析的结果（前瞻token上的词法错误行号不在哈希中），换算回旧子树的行号
+                int lineShift = fresh.span.firstLine - old.span.firstLine;
+                SourceSpan span = new SourceSpan(fresh.span.start, fresh.span.end, old.span.firstLine,
+                        old.span.lastLine, lineShift, old.span.tokenHash);
+                List<LexerError> lexerErrors = new ArrayList<>();
+                for (LexerError error : fresh.lexerErrors) {
+                    lexerErrors.add(new LexerError(error.getLineNum() - lineShift, error.getErrorType()));
+                }
+                List<SyntaxError> syntaxErrors = new ArrayList<>();
+                for (SyntaxError error : fresh.syntaxErrors) {
+                    syntaxErrors.add(new SyntaxError(error.getLineNum() - lineShift, error.getErrorType()));
+                }
+                newItems.set(i, new Item(old.declaration, span, lexerErrors, syntaxErrors, fresh.lookaheadEnd));
+            }
+        }
+        // 5. 对齐之后的顶层成分原样复用，只修正位置和行号
+        if (syncIndex >= 0) {
+            for (int i = syncIndex; i < items.size(); i++) {
+                newItems.add(items.get(i).shifted(delta, lineDelta));
+            }
+        }
+        return accept(newSource, newItems);
+    }
+
+    /**
+     * 上一次 parse/update 重新语法分析的顶层成分个数
+     */
+    public int getReparsedCount() {
+        return reparsedCount;
+    }
+
+    public CompUnit getCompUnit() {
+        return unit;
+    }
+
+    /**
+     * 各次分析共用的名字池。语义分析使用同一个名字池（new SemanticVisitor(getNames(), cache)）时，
+     * 符号表直接用标识符Token中的名字编号查找，不再对名字计算哈希
+     */
+    public NamePool getNames() {
+        return names;
+    }
+
+    /**
+     * 全部词法、语法错误（已修正为实际行号），词法错误在前，与普通编译的顺序一致
+     */
+    public List<CompilerError> getErrors() {
+        List<CompilerError> all = new ArrayList<>();
+        for (Item item : items) {
+            for (LexerError error : item.lexerErrors) {
+                all.add(item.span.lineShift == 0 ? error
+                        : new LexerError(error.getLineNum() + item.span.lineShift, error.getErrorType()));
+            }
+        }
+        for (Item item : items) {
+            for (SyntaxError error : item.syntaxErrors) {
+                all.add(item.span.lineShift == 0 ? error
+                        : new SyntaxError(error.getLineNum() + item.span.lineShift, error.getErrorType()));
+            }
+        }
+        return all;
+    }
+
+    private CompUnit accept(ByteBuffer newSource, List<Item> newItems) {
+        List<Declaration> declarations = new ArrayList<>();
+        List<SourceSpan> spans = new ArrayList<>();
+        for (Item item : newItems) {
+            if (item.declaration != null) {
+                declarations.add(item.declaration);
+                spans.add(item.span);
+            }
+        }
+        source = newSource;
+        items = newItems;
+        unit = new CompUnit(declarations, spans);
+        return unit;
+    }
+
+    /**
+     * 从startOffset开始逐个分析顶层成分，追加到out中；afterMain表示startOffset已在主函数之后，只收集词法错误。
+     * editEnd >= 0 时，每个顶层成分开始前检查是否与某个旧顶层成分对齐：
+     * 旧成分位于修改区间之后（start >= editEnd），且 start + delta 恰好是当前token的位置。
+     * @return 对齐的旧顶层成分下标，此时out的最后一项是只记录了对齐位置的占位项；没有对齐时返回-1
+     */
+    private int parseFrom(ByteBuffer src, int startOffset, int startLine, List<Item> out,
+                          boolean afterMain, int editEnd, int delta) {
+        Lexer lexer = new Lexer(src, names, startOffset, startLine);
+        TokenBuffer buffer = new TokenBuffer(lexer);
+        TokenStream tokens = new TokenStream(buffer);
+        Parser parser = new Parser(tokens);
+
+        int candidate = 0; // 下一个可能对齐的旧顶层成分
+        // 错误按产生的先后归入顶层成分：前瞻读到的token的词法错误归入正在分析的成分
+        int lexerMark = 0;
+        int syntaxMark = 0;
+        while (!afterMain) {
+            int offset = tokens.currentOffset();
+            if (editEnd >= 0) {
+                while (candidate < items.size() && (items.get(candidate).declaration == null
+                        || items.get(candidate).span.start < editEnd
+                        || items.get(candidate).span.start + delta < offset)) {
+                    candidate++;
+                }
+                if (candidate < items.size() && items.get(candidate).span.start + delta == offset) {
+                    SourceSpan at = new SourceSpan(offset, offset, tokens.currentLine(), tokens.currentLine(), 0, 0);
+                    out.add(new Item(null, at, List.of(), List.of(), offset));
+                    return candidate;
+                }
+            }
+            if (tokens.peek(0) == TokenType.EOF) {
+                break;
+            }
+
+            // 一个顶层成分，连同它前面无法识别而被跳过的部分
+            int firstIndex = tokens.position();
+            int firstLine = tokens.currentLine();
+            Declaration declaration;
+            do {
+                declaration = parser.parseTopLevelItem();
+            } while (declaration == null && tokens.peek(0) != TokenType.EOF);
+            if (declaration == null) {
+                // 文件末尾无法识别的部分，归入最后的剩余部分
+                addRest(src, lexer, parser, tokens, out, offset, firstLine, lexerMark, syntaxMark);
+                return -1;
+            }
+            int endIndex = tokens.position();
+            SourceSpan span = new SourceSpan(offset, tokens.previousEnd(), firstLine, tokens.previousLine(), 0,
+                    hash(buffer, src, firstIndex, endIndex, firstLine));
+            out.add(new Item(declaration, span,
+                    new ArrayList<>(lexer.getErrors().subList(lexerMark, lexer.getErrors().size())),
+                    new ArrayList<>(parser.getErrors().subList(syntaxMark, parser.getErrors().size())),
+                    lookaheadEnd(buffer)));
+            lexerMark = lexer.getErrors().size();
+            syntaxMark = parser.getErrors().size();
+            reparsedCount++;
+            buffer.release(endIndex - 1); // 已经算过哈希的token不再需要
+            if (declaration instanceof mainFuncDef) {
+                break;
+            }
+        }
+        addRest(src, lexer, parser, tokens, out, tokens.currentOffset(), tokens.currentLine(),
+                lexerMark, syntaxMark);
+        return -1;
+    }
+
+    // 主函数之后的内容不做语法分析，但仍需词法分析以收集词法错误
+    private static void addRest(ByteBuffer src, Lexer lexer, Parser parser, TokenStream tokens, List<Item> out,
+                                int offset, int firstLine, int lexerMark, int syntaxMark) {
+        tokens.drain();
+        SourceSpan span = new SourceSpan(offset, src.limit(), firstLine, lexer.getLineNum(), 0, 0);
+        out.add(new Item(null, span,
+                new ArrayList<>(lexer.getErrors().subList(lexerMark, lexer.getErrors().size())),
+                new ArrayList<>(parser.getErrors().subList(syntaxMark, parser.getErrors().size())),
+                src.limit()));
+    }
+
+    // 已经词法分析过的最后一个token的结束位置
+    private static int lookaheadEnd(TokenBuffer buffer) {
+        int last = buffer.size() - 1;
+        return buffer.offset(last) + buffer.length(last);
+    }
+
+    // token序列的哈希：类型、相对第一个token的行号，以及标识符、常量等的源程序字节。
+    // 成分之后前瞻读到的token也影响分析结果，一并计入；它们中只有EOF的行号会出现在分析结果中
+    // （块未闭合时的错误行号、右括号位置），其余的只计入类型和单词值
+    private static long hash(TokenBuffer buffer, ByteBuffer src, int from, int to, int firstLine) {
+        long h = FNV_OFFSET;
+        for (int i = from; i < buffer.size(); i++) {
+            TokenType type = buffer.type(i);
+            h = (h ^ type.ordinal()) * FNV_PRIME;
+            if (i < to || type == TokenType.EOF) {
+                h = (h ^ (buffer.line(i) - firstLine)) * FNV_PRIME;
+            }
+            if (type == TokenType.IDENFR || type == TokenType.INTCON
+                    || type == TokenType.STRCON || type == TokenType.ERROR) {
+                int offset = buffer.offset(i);
+                int length = buffer.length(i);
+                for (int k = 0; k < length; k++) {
+                    h = (h ^ src.get(offset + k)) * FNV_PRIME;
+                }
+                h = (h ^ length) * FNV_PRIME;
+            }
+        }
+        return h;
+    }
+}
@@ -0,0 +1,68 @@
+package parser;
+
+import ast.Expression;
+import frontend.Token;
+
+import java.util.Arrays;
+
+/**
+ * 表达式分析用的显式栈 (OperatorStack)
+ * 记录尚未归约的二元运算符（及其左操作数）、一元运算符和左括号，
+ * 表达式的嵌套深度只受堆内存限制，不再受线程栈限制。
+ * 数组结构存放，一个语法分析器复用同一个栈，入栈不创建对象。
+ */
+class OperatorStack {
+    static final byte BINARY = 0;   // 二元运算符：level为优先级层次，operand为左操作数
+    static final byte UNARY = 1;    // 一元运算符
+    static final byte PAREN = 2;    // 左括号：level保存括号外的入口层次
+
+    private byte[] kinds = new byte[16];
+    private int[] levels = new int[16];
+    private Expression[] operands = new Expression[16];
+    private Token[] ops = new Token[16];
+    private int size;
+
+    void push(byte kind, int level, Expression operand, Token op) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            operands = Arrays.copyOf(operands, capacity);
+            ops = Arrays.copyOf(ops, capacity);
+        }
+        kinds[size] = kind;
+        levels[size] = level;
+        operands[size] = operand;
+        ops[size] = op;
+        size++;
+    }
+
+    /**
+     * 弹出栈顶，清除引用以免语法树被栈持有
+     */
+    void pop() {
+        size--;
+        operands[size] = null;
+        ops[size] = null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte topKind() {
+        return kinds[size - 1];
+    }
+
+    int topLevel() {
+        return levels[size - 1];
+    }
+
+    Expression topOperand() {
+        return operands[size - 1];
+    }
+
+    Token topOp() {
+        return ops[size - 1];
+    }
+}
@@ -0,0 +1,214 @@
+package parser;
+
+import ast.Declaration;
+import ast.topLevelNodes.CompUnit;
+import ast.topLevelNodes.mainFuncDef;
+import error.SyntaxError;
+import frontend.TokenBuffer;
+import frontend.TokenStream;
+import frontend.TokenType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 并行语法分析器 (ParallelParser)
+ * 分两步分析一个已经完整词法分析过的源程序：
+ * 1. 顺序扫描一遍Token类型，靠括号匹配找出每个全局声明、函数定义、主函数的Token区间（骨架），
+ *    再把相邻的区间合并成大小适中的分段；
+ * 2. 每个分段由独立的 Parser 在各自的窗口（见 TokenStream 的窗口构造函数）上分析，
+ *    分段在 fork-join 公共线程池中并行执行，最后按分段顺序拼接语法树，合并并排序语法错误。
+ *
+ * 顶层成分之间的分析没有共享状态，所以只要每个分段都恰好分析到分段末尾、
+ * 且没有查看过分段之外的Token，结果就与顺序分析完全相同。
+ * 骨架扫描对有语法错误的程序可能切错位置，此时退回顺序分析整个文件。
+ */
+public class ParallelParser {
+    // 一个分段至少包含的Token数，太小的分段调度开销超过分析本身
+    private static final int MIN_SEGMENT_TOKENS = 1 << 14;
+    // 顶层声明开头的关键字，与 Parser.parseTopLevelItem 的分支一致
+    private static final EnumSet<TokenType> TOP_START = EnumSet.of(
+            TokenType.CONSTTK, TokenType.STATICTK, TokenType.INTTK);
+    // 跳过无法识别的结构时停下的token，与 Parser 的 TOP_SYNC 一致（不含EOF，EOF另外判断）
+    private static final EnumSet<TokenType> TOP_SYNC = EnumSet.of(
+            TokenType.CONSTTK, TokenType.STATICTK, TokenType.INTTK, TokenType.VOIDTK);
+
+    private final TokenBuffer buffer;
+    private final CountingParseListener counts; // 不为null时统计终结符和语法成分，各分段分别计数，最后按顺序合并
+    private final List<SyntaxError> errors = new ArrayList<>();
+    private int segmentCount;
+    private boolean sequential;
+
+    /**
+     * @param buffer 完整读入的Token缓冲区（见 TokenBuffer.readAll）
+     */
+    public ParallelParser(TokenBuffer buffer) {
+        this(buffer, null);
+    }
+
+    /**
+     * @param counts 不为null时统计消费的终结符和归约的语法成分，结果与顺序分析时相同
+     */
+    public ParallelParser(TokenBuffer buffer, CountingParseListener counts) {
+        this.buffer = buffer;
+        this.counts = counts;
+    }
+
+    public CompUnit parse() {
+        List<int[]> segments = scanSkeleton();
+        segmentCount = segments.size();
+        List<Segment> results = IntStream.range(0, segments.size())
+                .parallel()
+                .mapToObj(i -> parseSegment(segments.get(i)[0], segments.get(i)[1]))
+                .toList();
+
+        List<Declaration> declarations = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            Segment segment = results.get(i);
+            // 主函数之后顺序分析就停止了，分段中途出现主函数说明骨架切错了位置
+            if (!segment.exact || (segment.endsWithMain && i < results.size() - 1)) {
+                return parseSequentially();
+            }
+            declarations.addAll(segment.declarations);
+            errors.addAll(segment.errors);
+        }
+        if (counts != null) {
+            // 分段都与顺序分析一致后才合并计数；分段按顶层成分分析，补上顺序分析最后的 <CompUnit>
+            for (Segment segment : results) {
+                counts.add(segment.counts);
+            }
+            counts.syntaxComponent("CompUnit");
+        }
+        Collections.sort(errors); // 稳定排序，同一行的错误保持顺序分析时的先后
+        return new CompUnit(declarations);
+    }
+
+    public List<SyntaxError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * 骨架切分出的分段个数
+     */
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * 是否因为骨架与实际分析不一致而退回了顺序分析
+     */
+    public boolean isSequential() {
+        return sequential;
+    }
+
+    private CompUnit parseSequentially() {
+        sequential = true;
+        errors.clear();
+        Parser parser = new Parser(new TokenStream(buffer), counts == null ? ParseListener.NONE : counts);
+        CompUnit compUnit = parser.parse();
+        errors.addAll(parser.getErrors());
+        return compUnit;
+    }
+
+    // 一个分段的分析结果
+    private static final class Segment {
+        final List<Declaration> declarations = new ArrayList<>();
+        List<SyntaxError> errors;
+        CountingParseListener counts; // 统计时本分段的计数
+        boolean exact;        // 恰好分析到分段末尾，且没有查看分段之外的Token
+        boolean endsWithMain;
+    }
+
+    // 与 Parser.parseCompUnit 相同的循环，只是在分段末尾停下
+    private Segment parseSegment(int from, int to) {
+        TokenStream tokens = new TokenStream(buffer, from, to);
+        Segment segment = new Segment();
+        segment.counts = counts == null ? null : new CountingParseListener();
+        Parser parser = new Parser(tokens, segment.counts == null ? ParseListener.NONE : segment.counts);
+        while (tokens.position() < to) {
+            Declaration declaration = parser.parseTopLevelItem();
+            if (declaration != null) {
+                segment.declarations.add(declaration);
+            }
+            if (declaration instanceof mainFuncDef) {
+                segment.endsWithMain = true;
+                break;
+            }
+        }
+        segment.errors = parser.getErrors();
+        segment.exact = tokens.position() == to && !tokens.readPastLimit();
+        return segment;
+    }
+
+    // ----- 骨架扫描 -----
+
+    // 把Token切成若干 [from, to) 分段，每段由完整的顶层成分组成，主函数所在的分段是最后一段
+    private List<int[]> scanSkeleton() {
+        int eof = buffer.size() - 1;
+        List<int[]> segments = new ArrayList<>();
+        int segmentStart = 0;
+        int i = 0;
+        while (i < eof) {
+            boolean main = type(i) == TokenType.INTTK && type(i + 1) == TokenType.MAINTK;
+            i = itemEnd(i, eof);
+            if (main || i >= eof || i - segmentStart >= MIN_SEGMENT_TOKENS) {
+                segments.add(new int[]{segmentStart, i});
+                segmentStart = i;
+            }
+            if (main) {
+                break;
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.add(new int[]{0, eof}); // 空文件
+        }
+        return segments;
+    }
+
+    // 从start开始的顶层成分的结束位置（不含）：函数到与函数体 '{' 匹配的 '}'，声明到最外层的 ';'。
+    // 有语法错误时尽量与 Parser 的恢复方式一致，使一处错误不会让之后的整个文件变成一个分段：
+    // - 函数体中、或声明的最外层出现下一个函数定义的开头时，在它之前结束（缺少 '}' 或 ';'，见 Parser.parseBlock）；
+    // - 不能作为顶层成分开头的token，跳到下一个声明或函数定义的关键字（见 Parser.parseTopLevelItem）
+    private int itemEnd(int start, int eof) {
+        boolean function = funcDefStart(start);
+        if (!function && !TOP_START.contains(type(start))) {
+            int i = start + 1;
+            while (i < eof && !TOP_SYNC.contains(type(i))) {
+                i++;
+            }
+            return i;
+        }
+        int depth = 0;
+        for (int i = start; i < eof; i++) {
+            TokenType type = buffer.type(i);
+            if (i > start && (function ? depth > 0 : depth <= 0) && funcDefStart(i)) {
+                return i;
+            }
+            if (type == TokenType.LBRACE) {
+                depth++;
+            } else if (type == TokenType.RBRACE) {
+                depth--;
+                if (function && depth == 0) {
+                    return i + 1;
+                }
+            } else if (type == TokenType.SEMICN && !function && depth <= 0) {
+                return i + 1;
+            }
+        }
+        return eof;
+    }
+
+    // (int|void) Ident '(' 或 int main '('
+    private boolean funcDefStart(int index) {
+        return (type(index) == TokenType.INTTK || type(index) == TokenType.VOIDTK)
+                && (type(index + 1) == TokenType.IDENFR || type(index + 1) == TokenType.MAINTK)
+                && type(index + 2) == TokenType.LPARENT;
+    }
+
+    private TokenType type(int index) {
+        return index < buffer.size() ? buffer.type(index) : TokenType.EOF;
+    }
+}
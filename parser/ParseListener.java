@@ -0,0 +1,60 @@
+package parser;
+
+import frontend.TokenStream;
+import frontend.TokenType;
+
+/**
+ * 语法分析事件监听器 (ParseListener)
+ * 语法分析器每消费一个终结符、每归约出一个语法成分时通知监听器。
+ * 默认的 NONE 什么也不做，正常编译不为 parser.txt 式的输出付出任何代价；
+ * 需要输出时使用 TraceParseListener（Compiler --trace），
+ * 需要统计时使用 CountingParseListener（Compiler --stats 的语法分析阶段）。
+ */
+public interface ParseListener {
+    /**
+     * 不做任何事的监听器，语法分析器的默认值
+     */
+    ParseListener NONE = new ParseListener() {
+    };
+
+    /**
+     * 即将消费一个终结符。此时 tokens 仍停在该终结符上，
+     * 需要单词值时再调用 tokens.currentValue()，不需要时不会构造字符串
+     * @param type 终结符类型
+     * @param tokens 当前的Token流，监听器只能读取，不能移动它
+     */
+    default void token(TokenType type, TokenStream tokens) {
+    }
+
+    /**
+     * 分析完一个语法成分
+     * @param name 语法成分名，如 "Stmt"
+     */
+    default void syntaxComponent(String name) {
+    }
+
+    /**
+     * 依次通知两个监听器，如同时输出分析过程和统计个数
+     */
+    static ParseListener both(ParseListener first, ParseListener second) {
+        if (first == NONE) {
+            return second;
+        }
+        if (second == NONE) {
+            return first;
+        }
+        return new ParseListener() {
+            @Override
+            public void token(TokenType type, TokenStream tokens) {
+                first.token(type, tokens);
+                second.token(type, tokens);
+            }
+
+            @Override
+            public void syntaxComponent(String name) {
+                first.syntaxComponent(name);
+                second.syntaxComponent(name);
+            }
+        };
+    }
+}
@@ -15,62 +15,78 @@ import ast.topLevelNodes.FuncParam;
 import ast.topLevelNodes.mainFuncDef;
 import error.SyntaxError;
 import frontend.Token;
+import frontend.TokenStream;
 import frontend.TokenType;
 
-import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 
 public class Parser {
-    private final List<Token> tokens;
-    private int currentPos = 0; // 指向当前token的索引
-    private Token currentToken; // 当前token的快照，方便访问
+    private final TokenStream tokens; // 按需从词法分析器拉取的token流
 
-    private final PrintWriter outputWriter; // 用于输出到 parser.txt
+    private final ParseListener listener; // 接收终结符/语法成分事件，如输出 parser.txt
     private final List<SyntaxError> errors = new ArrayList<>();
+    private final OperatorStack operators = new OperatorStack(); // 表达式分析的显式栈
 
-    // 构造函数
-    public Parser(List<Token> tokens, PrintWriter outputWriter) {
+    // 只检查错误时，只由数字组成的常量表达式不会产生语义错误，也不需要它的值：
+    // 整个子树用这个共享的节点代替，不为它分配节点和Token
+    private static final NumberLiteral CONSTANT = new NumberLiteral(new Token(TokenType.INTCON, "0", 0, -1));
+    private boolean diagnosticsOnly;
+
+    // 构造函数，不需要分析过程的输出
+    public Parser(TokenStream tokens) {
+        this(tokens, ParseListener.NONE);
+    }
+
+    public Parser(TokenStream tokens, ParseListener listener) {
         this.tokens = tokens;
-        this.outputWriter = outputWriter;
-        // 初始化第一个token
-        if (tokens.isEmpty()) {
-            throw new IllegalArgumentException("Token list cannot be empty");
-        }
-        this.currentToken = tokens.get(0);
+        this.listener = listener;
     }
 
     public List<SyntaxError> getErrors() {
         return errors;
     }
 
+    /**
+     * 只检查错误：语法树只需要支持语义检查，常量子表达式不再建立节点（数值也不保留），
+     * 数组初值列表中的常量元素直接丢弃
+     */
+    public void setDiagnosticsOnly(boolean diagnosticsOnly) {
+        this.diagnosticsOnly = diagnosticsOnly;
+    }
+
     // ----- Token流处理辅助方法 -----
 
     // 前进一个token
     private void nextToken() {
-        if (currentPos < tokens.size() - 1) {
-            currentPos++;
-            currentToken = tokens.get(currentPos);
-        }
+        tokens.advance();
     }
 
     // 查看当前token类型
     private TokenType peek() {
-        return currentToken.type();
+        return tokens.peek(0);
     }
 
     // 查看未来第k个token的类型（不移动指针）
     private TokenType peek(int k) {
-        if (currentPos + k < tokens.size()) {
-            return tokens.get(currentPos + k).type();
-        }
-        return TokenType.EOF; // 超出范围则返回EOF
+        return tokens.peek(k); // 超出范围则返回EOF
     }
 
-    // 消费当前token并输出
+    // 当前token的行号
+    private int currentLine() {
+        return tokens.currentLine();
+    }
+
+    // 当前token物化成对象，只在需要保存到语法树中时调用
+    private Token currentToken() {
+        return tokens.current();
+    }
+
+    // 消费当前token并通知监听器
     private void consume() {
-        // 输出当前token信息
-        outputWriter.println(currentToken.type().name() + " " + currentToken.value());
+        listener.token(peek(), tokens);
         nextToken();
     }
 
@@ -84,20 +100,65 @@ public class Parser {
         } else {
             // 错误处理：缺失了期望的token
             // 错误行号通常记录在前一个token的位置
-            int errorLine = currentPos > 0 ? tokens.get(currentPos - 1).lineNum() : currentToken.lineNum();
+            int errorLine = tokens.previousLine();
             errors.add(new SyntaxError(errorLine, errorCode));
         }
     }
 
     // ----- 语法成分输出辅助方法 -----
     private void printSyntaxComponent(String name) {
-        outputWriter.println("<" + name + ">");
+        listener.syntaxComponent(name);
     }
 
     // ----- 错误记录辅助方法 -----
     private void addError(String errorCode) {
         // 错误行号记录在当前token的位置
-        errors.add(new SyntaxError(currentToken.lineNum(), errorCode));
+        errors.add(new SyntaxError(currentLine(), errorCode));
+    }
+
+    // ----- 错误恢复（紧急模式）-----
+    // 当前token不能作为语法成分的开头时，直接跳到同步点继续分析，
+    // 不再把无法识别的token逐个当作语法成分分析，避免一个错误引发一连串错误。
+    // 跳过时不记录错误：error.txt 只能出现 a~m 类错误，跳过的内容由已有的错误报告——
+    // 缺少 ; ) ] 的错误 (i/j/k) 仍由 consume(expected, code) 记录，不跳过任何token；
+    // 词法分析已报告 a 类错误的 '&'、'|' 也不跳过，仍按原来的方式当作左值分析，由语义分析报告 c 类错误。
+
+    // Exp的FIRST集
+    private static final EnumSet<TokenType> EXP_FIRST = EnumSet.of(
+            TokenType.IDENFR, TokenType.INTCON, TokenType.LPARENT,
+            TokenType.PLUS, TokenType.MINU, TokenType.NOT);
+    // 语句内的同步点：语句的结束符、所在块的结束符、语句和声明开头的关键字
+    private static final EnumSet<TokenType> STMT_SYNC = EnumSet.of(
+            TokenType.SEMICN, TokenType.LBRACE, TokenType.RBRACE,
+            TokenType.IFTK, TokenType.ELSETK, TokenType.FORTK, TokenType.BREAKTK, TokenType.CONTINUETK,
+            TokenType.RETURNTK, TokenType.PRINTFTK,
+            TokenType.CONSTTK, TokenType.STATICTK, TokenType.INTTK, TokenType.VOIDTK, TokenType.EOF);
+    // 以关键字或 '{' 开头的语句
+    private static final EnumSet<TokenType> STMT_KEYWORDS = EnumSet.of(
+            TokenType.LBRACE, TokenType.IFTK, TokenType.FORTK, TokenType.BREAKTK, TokenType.CONTINUETK,
+            TokenType.RETURNTK, TokenType.PRINTFTK);
+    // 声明内的同步点：下一个定义、声明的结束符、所在块的结束符、声明开头的关键字
+    private static final EnumSet<TokenType> DECL_SYNC = EnumSet.of(
+            TokenType.SEMICN, TokenType.COMMA, TokenType.RBRACE,
+            TokenType.CONSTTK, TokenType.STATICTK, TokenType.INTTK, TokenType.VOIDTK, TokenType.EOF);
+    // 全局的同步点：声明和函数定义开头的关键字
+    private static final EnumSet<TokenType> TOP_SYNC = EnumSet.of(
+            TokenType.CONSTTK, TokenType.STATICTK, TokenType.INTTK, TokenType.VOIDTK, TokenType.EOF);
+
+    // 块内的同步点：函数定义的开头 (int|void) Ident '(' 或 int main '('。
+    // 块中不可能出现函数定义，遇到时说明缺少 '}'：结束所有未闭合的块，回到顶层分析这个函数，
+    // 而不是把后面的每个函数都当作局部声明分析
+    private boolean atFuncDefStart() {
+        return (peek() == TokenType.INTTK || peek() == TokenType.VOIDTK)
+                && (peek(1) == TokenType.IDENFR || peek(1) == TokenType.MAINTK)
+                && peek(2) == TokenType.LPARENT;
+    }
+
+    // 跳过当前token及其后不在同步集合中的token
+    private void skipTo(EnumSet<TokenType> sync) {
+        do {
+            nextToken();
+        } while (!sync.contains(peek()));
     }
 
 
@@ -111,39 +172,48 @@ public class Parser {
     // CompUnit → {Decl} {FuncDef} MainFuncDef
     private CompUnit parseCompUnit() {
         List<Declaration> declarations = new ArrayList<>();
-        // 循环分析全局声明和函数定义
+        // 循环分析全局声明和函数定义，主函数之后的内容不再分析
         while (peek() != TokenType.EOF) {
-            if (peek() == TokenType.INTTK && peek(1) == TokenType.MAINTK) {
-                // 遇到主函数，跳出循环
-                break;
+            Declaration declaration = parseTopLevelItem();
+            if (declaration != null) {
+                declarations.add(declaration);
             }
-            if ((peek() == TokenType.VOIDTK || peek() == TokenType.INTTK) &&
-                    peek(1) == TokenType.IDENFR && peek(2) == TokenType.LPARENT) {
-                // 声明const static int s;
-                declarations.add(parseFuncDef());
-            } else if (peek() == TokenType.CONSTTK || peek() == TokenType.STATICTK
-                    || peek() == TokenType.INTTK) {
-                //
-                declarations.add(parseDecl());
-            } else {
-                // 无法识别的结构，跳过当前token避免死循环
-                nextToken();
+            if (declaration instanceof mainFuncDef) {
+                break;
             }
         }
 
-        // 分析主函数
-        if (peek() == TokenType.INTTK && peek(1) == TokenType.MAINTK) {
-            declarations.add(parseMainFuncDef());
-        }
-
         printSyntaxComponent("CompUnit");
         return new CompUnit(declarations);
     }
 
+    /**
+     * 分析一个顶层成分：全局声明、函数定义或主函数。
+     * 遇到无法识别的结构时跳到下一个顶层成分的开头，返回null
+     * （增量分析逐个调用本方法，以便记录每个顶层成分在源程序中的范围）
+     */
+    public Declaration parseTopLevelItem() {
+        if (peek() == TokenType.INTTK && peek(1) == TokenType.MAINTK) {
+            // 主函数
+            return parseMainFuncDef();
+        }
+        if ((peek() == TokenType.VOIDTK || peek() == TokenType.INTTK) &&
+                peek(1) == TokenType.IDENFR && peek(2) == TokenType.LPARENT) {
+            return parseFuncDef();
+        } else if (peek() == TokenType.CONSTTK || peek() == TokenType.STATICTK
+                || peek() == TokenType.INTTK) {
+            // 声明const static int s;
+            return parseDecl();
+        } else {
+            // 无法识别的结构，直接跳到下一个声明或函数定义
+            skipTo(TOP_SYNC);
+            return null;
+        }
+    }
+
     private Declaration parseFuncDef() {
         Token funcType = parseFuncType();
-        int lineNum = currentToken.lineNum();//标识符行号
-        Token ident = currentToken;
+        Token ident = currentToken();
         consume();//indent
         consume();//(
         List<FuncParam> params = null;
@@ -156,11 +226,11 @@ public class Parser {
     }
 
     private Block parseBlock() {
-        int lineNum = currentToken.lineNum();
+        int lineNum = currentLine();
         List<Statement> items = new ArrayList<>();
         List<Integer> returnPos = new ArrayList<>();
         consume();//{
-        while (peek() != TokenType.RBRACE) {
+        while (peek() != TokenType.RBRACE && peek() != TokenType.EOF && !atFuncDefStart()) {
             Statement tmp = parseBlockItem();
             items.add(tmp);
             if (tmp instanceof ReturnStmt) {
@@ -168,8 +238,12 @@ public class Parser {
                 returnPos.add(items.size()-1);
             }
         }
-        Token rightBrace = currentToken;
-        consume();//}
+        // 文件结束或遇到下一个函数时块仍未闭合：没有对应的错误类别，不记录（缺少的 '}' 不影响其他错误的报告），
+        // 也不消费这个token
+        Token rightBrace = currentToken();
+        if (peek() == TokenType.RBRACE) {
+            consume();//}
+        }
         printSyntaxComponent("Block");
         return new Block(lineNum, items, rightBrace, returnPos);
     }
@@ -238,7 +312,7 @@ public class Parser {
 
     private FuncParam parseFuncFParam() {
         Token bType = parseBType();
-        Token ident = currentToken;
+        Token ident = currentToken();
         boolean isArray = false;
         consume(); // Ident
         if (peek() == TokenType.LBRACK) {
@@ -251,7 +325,7 @@ public class Parser {
     }
 
     private Token parseFuncType() {
-        Token token = currentToken;
+        Token token = currentToken();
         if (peek() == TokenType.VOIDTK) {
             consume();
         } else if (peek() == TokenType.INTTK) {
@@ -263,7 +337,7 @@ public class Parser {
 
     private Declaration parseMainFuncDef() {
         consume();//int
-        int lineNum = currentToken.lineNum();
+        int lineNum = currentLine();
         consume();//main
         consume();//(
         consume(TokenType.RPARENT, "j");//)
@@ -285,14 +359,13 @@ public class Parser {
 
     // ConstDecl → 'const' BType ConstDef { ',' ConstDef } ';'
     private VarDecl parseConstDecl() {
-        Token constToken = currentToken;
         consume(TokenType.CONSTTK, "expect reserved word const"); // 假设有个错误码，实际上不可能出现错误。
         Token bType = parseBType();
         List<VarDef> varDefs = new ArrayList<>();
-        varDefs.add(parseConstDef());
+        addDef(varDefs, parseConstDef());
         while (peek() == TokenType.COMMA) {
             consume(); // 消费 ','
-            varDefs.add(parseConstDef());
+            addDef(varDefs, parseConstDef());
         }
         // 错误检查 i: 缺少分号
         consume(TokenType.SEMICN, "i");
@@ -302,7 +375,11 @@ public class Parser {
     }
 
     private VarDef parseConstDef() {
-        Token ident = currentToken;
+        if (peek() != TokenType.IDENFR) {
+            syncDecl();
+            return null;
+        }
+        Token ident = currentToken();
         consume(); // Ident
         Expression indexExp = null;
         if (peek() == TokenType.LBRACK) {
@@ -322,16 +399,16 @@ public class Parser {
         List<Expression> listValue = null;
         //ConstInitVal → ConstExp | '{' [ ConstExp { ',' ConstExp } ] '}'
         if (peek() == TokenType.LBRACE) {
-            int lineNum = currentToken.lineNum();
+            int lineNum = currentLine();
             //消耗{
             consume();
             //一维数组初值
             if (peek() != TokenType.RBRACE) {
                 listValue = new ArrayList<>();
-                listValue.add(parseConstExp());
+                addElement(listValue, parseConstExp());
                 while (peek() == TokenType.COMMA) {
                     consume(); // ','
-                    listValue.add(parseConstExp());
+                    addElement(listValue, parseConstExp());
                 }
             }
             //吃掉}
@@ -346,16 +423,39 @@ public class Parser {
 
     }
 
+    // 定义不以标识符开头时跳到下一个定义或声明的结尾，之后的 ';' 仍由 consume 检查
+    private void syncDecl() {
+        if (!DECL_SYNC.contains(peek())) {
+            skipTo(DECL_SYNC);
+        }
+    }
+
+    private static void addDef(List<VarDef> varDefs, VarDef def) {
+        if (def != null) {
+            varDefs.add(def);
+        }
+    }
+
+    // 初值列表的元素；被代替的常量只在只检查错误时出现，直接丢弃
+    private static void addElement(List<Expression> listValue, Expression element) {
+        if (element != CONSTANT) {
+            listValue.add(element);
+        }
+    }
+
     private Expression parseConstExp() {
-        Expression exp = parseAddExp();
+        Expression exp = parseExpression(ADD_LEVEL);
         printSyntaxComponent("ConstExp");
         return exp;
     }
 
     // BType → 'int'
     private Token parseBType() {
-        Token token = currentToken;
-        consume(TokenType.INTTK, "expect int");
+        Token token = currentToken();
+        if (peek() == TokenType.INTTK) {
+            consume();
+        }
+        // 缺少 int 没有对应的错误类别（error.txt 只能出现 a~m），不记录
         // <BType> 不要求输出
         return token;
     }
@@ -369,10 +469,10 @@ public class Parser {
         }
         Token bType = parseBType();
         List<VarDef> varDefs = new ArrayList<>();
-        varDefs.add(parseVarDef());
+        addDef(varDefs, parseVarDef());
         while (peek() == TokenType.COMMA) {
             consume();
-            varDefs.add(parseVarDef());
+            addDef(varDefs, parseVarDef());
         }
         consume(TokenType.SEMICN, "i");
         printSyntaxComponent("VarDecl");
@@ -381,7 +481,11 @@ public class Parser {
 
     // VarDef → Ident [ '[' ConstExp ']' ] | Ident [ '[' ConstExp ']' ] '=' InitVal
     private VarDef parseVarDef() {
-        Token ident = currentToken;
+        if (peek() != TokenType.IDENFR) {
+            syncDecl();
+            return null;
+        }
+        Token ident = currentToken();
         Expression indexExp = null;
         InitVal initVal = null;
         consume(); // Ident
@@ -401,19 +505,19 @@ public class Parser {
     private InitVal parseInitVal() {
         if (peek() == TokenType.LBRACE) {
             List<Expression> listValue = new ArrayList<>();
-            int lineNum = currentToken.lineNum();
+            int lineNum = currentLine();
             consume(); // '{'
             if (peek() != TokenType.RBRACE) {
-                listValue.add(parseExp());
+                addElement(listValue, parseExp());
                 while (peek() == TokenType.COMMA) {
                     consume(); // ','
-                    listValue.add(parseExp());
+                    addElement(listValue, parseExp());
                 }
             }
             consume(); // '}'
             return new InitVal(lineNum,listValue);
         } else {
-            int lineNum = currentToken.lineNum();
+            int lineNum = currentLine();
             Expression singleValue = parseExp();
             return new InitVal(singleValue);
         }
@@ -430,7 +534,7 @@ public class Parser {
                 break;
             case IFTK:
                 // 'if' '(' Cond ')' Stmt [ 'else' Stmt ]
-                int ifLineNum = currentToken.lineNum();
+                int ifLineNum = currentLine();
                 consume(); // if
                 consume(); // '('
                 Expression condition = parseCond();
@@ -445,7 +549,7 @@ public class Parser {
                 break;
             case FORTK:
                 // 'for' '(' [ForStmt] ';' [Cond] ';' [ForStmt] ')' Stmt
-                int forLineNum = currentToken.lineNum();
+                int forLineNum = currentLine();
                 consume(); // for
                 consume(); // '('
                 List<AssignStmt> init = null;
@@ -468,19 +572,19 @@ public class Parser {
                 stmt = new ForStmt(forLineNum,init, cond, update, body);
                 break;
             case BREAKTK:
-                int breakLineNum = currentToken.lineNum();
+                int breakLineNum = currentLine();
                 consume(); // break
                 consume(TokenType.SEMICN, "i"); // 错误检查 i
                 stmt = new BreakStmt(breakLineNum);
                 break;
             case CONTINUETK:
-                int continueLineNum = currentToken.lineNum();
+                int continueLineNum = currentLine();
                 consume(); //continue
                 consume(TokenType.SEMICN, "i"); // 错误检查 i
                 stmt = new ContinueStmt(continueLineNum);
                 break;
             case RETURNTK:
-                int returnLineNum = currentToken.lineNum();
+                int returnLineNum = currentLine();
                 consume(); // return
                 Expression returnValue = null;
                 // [Exp]
@@ -493,10 +597,10 @@ public class Parser {
                 break;
             case PRINTFTK:
                 // 'printf''('StringConst {','Exp}')'';'
-                int printfLineNum = currentToken.lineNum();
+                int printfLineNum = currentLine();
                 consume(); // printf
                 consume(); // '('
-                Token formatString = currentToken;
+                Token formatString = currentToken();
                 consume(); // StringConst
                 List<Expression> args = new ArrayList<>();
                 while (peek() == TokenType.COMMA) {
@@ -509,15 +613,30 @@ public class Parser {
                 break;
             case SEMICN:
                 //空语句
-                int ExpLineNum = currentToken.lineNum();
+                int ExpLineNum = currentLine();
                 consume(TokenType.SEMICN, "i"); // 明确处理空语句
                 stmt = new ExpStmt(ExpLineNum, null);
                 break;
             default:
+                if (!EXP_FIRST.contains(peek()) && peek() != TokenType.ERRORAND && peek() != TokenType.ERROROR) {
+                    // 不能作为语句开头的token：跳到同步点。停在另一条语句的开头时，就用那条语句代替本条语句；
+                    // 否则把跳过的部分（连同结尾的分号）当作空语句
+                    int skipLineNum = currentLine();
+                    skipTo(STMT_SYNC);
+                    if (STMT_KEYWORDS.contains(peek())) {
+                        return parseStmt();
+                    }
+                    if (peek() == TokenType.SEMICN) {
+                        consume();
+                    }
+                    stmt = new ExpStmt(skipLineNum, null);
+                    break;
+                }
                 // 能进入这里的，必然是 LVal=Exp; 或 Exp; (且Exp不为空)
+                // 向后查找 '='，只在本条语句范围内查找（遇到同步点为止），避免缺少分号时反复扫描后续语句
                 int i = 0;
                 boolean isAssign = false;
-                while (peek(i) != TokenType.SEMICN && peek(i) != TokenType.EOF) {
+                while (!STMT_SYNC.contains(peek(i))) {
                     if (peek(i) == TokenType.ASSIGN) {
                         isAssign = true;
                         break;
@@ -533,7 +652,7 @@ public class Parser {
                     stmt = new AssignStmt(lval, value);
                 } else {
                     Expression exp = null;
-                    int line = currentToken.lineNum();
+                    int line = currentLine();
                     exp = parseExp(); // 移除了 if，因为这里必然有表达式
                     consume(TokenType.SEMICN, "i"); // 最后必须有分号
                     stmt = new ExpStmt(line, exp);
@@ -568,143 +687,147 @@ public class Parser {
     }
 
     private Expression parseCond() {
-        Expression exp = parseLOrExp();
+        Expression exp = parseExpression(LOR_LEVEL);
         printSyntaxComponent("Cond");
         return exp;
     }
 
-    // LOrExp → LAndExp | LOrExp '||' LAndExp
-    // 消除左递归: LAndExp { '||' LAndExp }
-    private Expression parseLOrExp() {
-        Expression left = parseLAndExp();
-        printSyntaxComponent("LOrExp");
-        while (peek() == TokenType.OR || peek() == TokenType.ERROROR) {
-            Token op = currentToken;
-            consume();
-            Expression right = parseLAndExp();
-            left = new BinaryExp(left, op, right);
-            printSyntaxComponent("LOrExp");
-        }
-        //printSyntaxComponent("LOrExp");
-        return left;
-    }
-
-    //LAndExp → EqExp | LAndExp '&&' EqExp
-    //消除左递归: EqExp { '&&' EqExp }
-    private Expression parseLAndExp() {
-        Expression left = parseEqExp();
-        printSyntaxComponent("LAndExp");
-        //注意这里认为&也是逻辑与，这里不处理。避免错误雪崩
-        while (peek() == TokenType.AND || peek() == TokenType.ERRORAND) {
-            Token op = currentToken;
-            consume();
-            Expression right = parseEqExp();
-            left = new BinaryExp(left, op, right);
-            printSyntaxComponent("LAndExp");
-        }
-        //printSyntaxComponent("LAndExp");
-        return left;
-    }
-
-    //EqExp → RelExp | EqExp ('==' | '!=') RelExp
-    //消除左递归: RelExp { ('==' | '!=') RelExp }
-    private Expression parseEqExp() {
-        Expression left = parseRelExp();
-        printSyntaxComponent("EqExp");
-        while (peek() == TokenType.EQL || peek() == TokenType.NEQ) {
-            Token op = currentToken;
-            consume();
-            Expression right = parseRelExp();
-            left = new BinaryExp(left, op, right);
-            printSyntaxComponent("EqExp");
-        }
-        //printSyntaxComponent("EqExp");
-        return left;
-    }
-
-    //RelExp → AddExp | RelExp ('<' | '>' | '<=' | '>=') AddExp
-    //消除左递归: AddExp { ('<' | '>' | '<=' | '>=') AddExp }
-    private Expression parseRelExp() {
-        Expression left = parseAddExp();
-        printSyntaxComponent("RelExp");
-        while (peek() == TokenType.LSS || peek() == TokenType.GRE || peek() == TokenType.LEQ || peek() == TokenType.GEQ) {
-            Token op = currentToken;
-            consume();
-            Expression right = parseAddExp();
-            left = new BinaryExp(left, op, right);
-            printSyntaxComponent("RelExp");
-        }
-        //printSyntaxComponent("RelExp");
-        return left;
-    }
-
     // Exp → AddExp
     private Expression parseExp() {
-        Expression exp = parseAddExp();
+        Expression exp = parseExpression(ADD_LEVEL);
         printSyntaxComponent("Exp");
         return exp;
     }
 
-    // AddExp → MulExp { ('+' | '−') MulExp }
-    // 注意：文法是左递归的，需要改写成非左递归形式进行分析
-    private Expression parseAddExp() {
-        Expression left = parseMulExp();
-        printSyntaxComponent("AddExp");
-        while (peek() == TokenType.PLUS || peek() == TokenType.MINU) {
-            Token op = currentToken;//+-
-            consume();
-            Expression right = parseMulExp();
-            left = new BinaryExp(left, op, right);
-            printSyntaxComponent("AddExp");
+    // ----- 表达式分析：优先级爬升 -----
+    // 文法中的七层表达式（消除左递归后）：
+    // LOrExp  → LAndExp { '||' LAndExp }
+    // LAndExp → EqExp { '&&' EqExp }
+    // EqExp   → RelExp { ('==' | '!=') RelExp }
+    // RelExp  → AddExp { ('<' | '>' | '<=' | '>=') AddExp }
+    // AddExp  → MulExp { ('+' | '−') MulExp }
+    // MulExp  → UnaryExp { ('*' | '/' | '%') UnaryExp }
+    // UnaryExp → PrimaryExp | Ident '(' [FuncRParams] ')' | UnaryOp UnaryExp
+    // PrimaryExp → '(' Exp ')' | LVal | Number
+    // 二元运算的六层用优先级表代替六个互相调用的方法，一元运算符和括号的嵌套记在显式栈上，
+    // 生成的语法树和输出的语法成分与逐层递归下降完全相同。
+
+    private static final int LOR_LEVEL = 0;
+    private static final int ADD_LEVEL = 4;
+    private static final int MUL_LEVEL = 5;
+    // 各层的语法成分名，下标为层次
+    private static final String[] LEVEL_NAMES = {"LOrExp", "LAndExp", "EqExp", "RelExp", "AddExp", "MulExp"};
+    // 二元运算符所在的层次，不是二元运算符为-1
+    private static final int[] BINARY_LEVEL = new int[TokenType.values().length];
+
+    static {
+        Arrays.fill(BINARY_LEVEL, -1);
+        BINARY_LEVEL[TokenType.OR.ordinal()] = 0;
+        BINARY_LEVEL[TokenType.ERROROR.ordinal()] = 0;
+        //注意这里认为&也是逻辑与，这里不处理。避免错误雪崩
+        BINARY_LEVEL[TokenType.AND.ordinal()] = 1;
+        BINARY_LEVEL[TokenType.ERRORAND.ordinal()] = 1;
+        BINARY_LEVEL[TokenType.EQL.ordinal()] = 2;
+        BINARY_LEVEL[TokenType.NEQ.ordinal()] = 2;
+        BINARY_LEVEL[TokenType.LSS.ordinal()] = 3;
+        BINARY_LEVEL[TokenType.GRE.ordinal()] = 3;
+        BINARY_LEVEL[TokenType.LEQ.ordinal()] = 3;
+        BINARY_LEVEL[TokenType.GEQ.ordinal()] = 3;
+        BINARY_LEVEL[TokenType.PLUS.ordinal()] = 4;
+        BINARY_LEVEL[TokenType.MINU.ordinal()] = 4;
+        BINARY_LEVEL[TokenType.MULT.ordinal()] = 5;
+        BINARY_LEVEL[TokenType.DIV.ordinal()] = 5;
+        BINARY_LEVEL[TokenType.MOD.ordinal()] = 5;
+    }
+
+    /**
+     * 分析从entryLevel层开始的表达式（LOR_LEVEL为LOrExp，ADD_LEVEL为AddExp）
+     * 函数实参和数组下标中的表达式会再次进入本方法，只使用栈中base以上的部分
+     */
+    private Expression parseExpression(int entryLevel) {
+        int base = operators.size();
+        int entry = entryLevel; // 当前所在括号内的入口层次
+        while (true) {
+            // 1. 读入一个UnaryExp：一元运算符和左括号入栈，直到遇到函数调用、数字或LVal
+            Expression operand;
+            while (true) {
+                if (peek() == TokenType.IDENFR && peek(1) == TokenType.LPARENT) {
+                    operand = parseFuncCall();
+                    break;
+                } else if (peek() == TokenType.PLUS || peek() == TokenType.MINU || peek() == TokenType.NOT) {
+                    Token op = currentToken();
+                    parseUnaryOp();
+                    operators.push(OperatorStack.UNARY, 0, null, op);
+                } else {
+                    printSyntaxComponent("UnaryExp");
+                    if (peek() == TokenType.LPARENT) {
+                        // '(' Exp ')'：括号内从AddExp开始
+                        consume();
+                        operators.push(OperatorStack.PAREN, entry, null, null);
+                        entry = ADD_LEVEL;
+                    } else {
+                        operand = parsePrimaryExp();
+                        break;
+                    }
+                }
+            }
+
+            // 2. 归约：从MulExp层向上爬升，直到遇到同层的运算符或到达入口层次
+            boolean needOperand = false;
+            while (!needOperand) {
+                // 一元运算符作用于刚读完的UnaryExp
+                while (operators.size() > base && operators.topKind() == OperatorStack.UNARY) {
+                    operand = operand == CONSTANT ? CONSTANT : new UnaryExp(operators.topOp(), operand);
+                    operators.pop();
+                    printSyntaxComponent("UnaryExp");
+                }
+                for (int level = MUL_LEVEL; ; level--) {
+                    if (operators.size() > base && operators.topKind() == OperatorStack.BINARY
+                            && operators.topLevel() == level) {
+                        operand = operand == CONSTANT && operators.topOperand() == CONSTANT
+                                ? CONSTANT : new BinaryExp(operators.topOperand(), operators.topOp(), operand);
+                        operators.pop();
+                    }
+                    printSyntaxComponent(LEVEL_NAMES[level]);
+                    if (BINARY_LEVEL[peek().ordinal()] == level) {
+                        // 同层的运算符：左操作数入栈，接着读右操作数
+                        operators.push(OperatorStack.BINARY, level, operand, currentToken());
+                        consume();
+                        needOperand = true;
+                        break;
+                    }
+                    if (level == entry) {
+                        break;
+                    }
+                }
+                if (!needOperand) {
+                    // 3. 到达入口层次：括号内的Exp结束，整个括号作为UnaryExp继续归约；否则整个表达式结束
+                    if (operators.size() > base && operators.topKind() == OperatorStack.PAREN) {
+                        entry = operators.topLevel();
+                        operators.pop();
+                        printSyntaxComponent("Exp");
+                        consume(TokenType.RPARENT, "j");
+                    } else {
+                        return operand;
+                    }
+                }
+            }
         }
-        //printSyntaxComponent("AddExp");
-        return left;
     }
 
-    //MulExp → UnaryExp | MulExp ('*' | '/' | '%') UnaryExp
-    private Expression parseMulExp() {
-        Expression left = parseUnaryExp();
-        printSyntaxComponent("MulExp");
-        while (peek() == TokenType.MULT || peek() == TokenType.DIV || peek() == TokenType.MOD) {
-            Token op = currentToken;
-            consume();
-            Expression right = parseUnaryExp();
-            left = new BinaryExp(left, op, right);
-            printSyntaxComponent("MulExp");
-        }
-        //printSyntaxComponent("MulExp");
-        return left;
-    }
-
-    //UnaryExp → PrimaryExp | Ident '(' [FuncRParams] ')' | UnaryOp UnaryExp // j
-    private Expression parseUnaryExp() {
-        if (peek() == TokenType.IDENFR && peek(1) == TokenType.LPARENT) {
-            Token indent = currentToken;
-            consume(); // Ident
-            consume(); // '('
-//            if (peek() != TokenType.RPARENT) {
-//                parseFuncRParams();
-//            }
-            List<Expression> args = null;
-            if (peek() == TokenType.LPARENT || peek() == TokenType.IDENFR || peek() == TokenType.INTCON
-                    || peek() == TokenType.PLUS || peek() == TokenType.MINU || peek() == TokenType.NOT) {
-                args = parseFuncRParams();
-            }
-            consume(TokenType.RPARENT, "j"); // ')'
-            printSyntaxComponent("UnaryExp");
-            return new FuncCall(indent, args);
-        } else if (peek() == TokenType.PLUS || peek() == TokenType.MINU || peek() == TokenType.NOT) {
-            Token op = currentToken;
-            parseUnaryOp();
-            Expression operand = parseUnaryExp();
-            printSyntaxComponent("UnaryExp");
-            return new UnaryExp(op, operand);
-        } else {
-            printSyntaxComponent("UnaryExp");
-            return parsePrimaryExp();
+    // Ident '(' [FuncRParams] ')'
+    private Expression parseFuncCall() {
+        Token indent = currentToken();
+        consume(); // Ident
+        consume(); // '('
+        List<Expression> args = null;
+        if (peek() == TokenType.LPARENT || peek() == TokenType.IDENFR || peek() == TokenType.INTCON
+                || peek() == TokenType.PLUS || peek() == TokenType.MINU || peek() == TokenType.NOT) {
+            args = parseFuncRParams();
         }
-        //printSyntaxComponent("UnaryExp");
-        //return null;
+        consume(TokenType.RPARENT, "j"); // ')'
+        printSyntaxComponent("UnaryExp");
+        return new FuncCall(indent, args);
     }
 
     private List<Expression> parseFuncRParams() {
@@ -718,15 +841,10 @@ public class Parser {
         return args;
     }
 
-    // PrimaryExp → '(' Exp ')' | LVal | Number // j
+    // PrimaryExp → LVal | Number，'(' Exp ')' 的情况在 parseExpression 中处理
     private Expression parsePrimaryExp() {
-        Expression exp = null;
-        if (peek() == TokenType.LPARENT) {
-            consume();
-            exp = parseExp();
-            consume(TokenType.RPARENT, "j");
-            return exp;
-        } else if (peek() == TokenType.INTCON) {
+        Expression exp;
+        if (peek() == TokenType.INTCON) {
             exp = parseNumber();
         } else {
             exp = parseLVal();
@@ -736,7 +854,7 @@ public class Parser {
     }
 
     private LVal parseLVal() {
-        Token indent = currentToken;
+        Token indent = currentToken();
         consume(); // Ident
         Expression indexExp = null;
         while (peek() == TokenType.LBRACK) {
@@ -749,7 +867,12 @@ public class Parser {
     }
 
     private NumberLiteral parseNumber() {
-        Token numberToken = currentToken;
+        if (diagnosticsOnly) {
+            consume(); // IntConst
+            printSyntaxComponent("Number");
+            return CONSTANT;
+        }
+        Token numberToken = currentToken();
         consume(); // IntConst
         printSyntaxComponent("Number");
         return new NumberLiteral(numberToken);
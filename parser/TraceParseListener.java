@@ -0,0 +1,40 @@
+package parser;
+
+import frontend.TokenStream;
+import frontend.TokenType;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 输出语法分析过程的监听器，格式与 parser.txt 相同：
+ * 终结符输出 "类型 单词值"，语法成分输出 "<成分名>"，每项一行。
+ * 内容先缓存在内存中，确定没有错误后再调用 writeTo() 写出。
+ */
+public class TraceParseListener implements ParseListener {
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    @Override
+    public void token(TokenType type, TokenStream tokens) {
+        buffer.append(type.name()).append(' ').append(tokens.currentValue()).append(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void syntaxComponent(String name) {
+        buffer.append('<').append(name).append('>').append(LINE_SEPARATOR);
+    }
+
+    /**
+     * 把缓存的输出写到 writer 中
+     */
+    public void writeTo(Writer writer) throws IOException {
+        writer.append(buffer);
+    }
+
+    @Override
+    public String toString() {
+        return buffer.toString();
+    }
+}
@@ -1,5 +1,7 @@
 package symbol;
 
+import symbol.types.SymbolType;
+
 import java.util.List;
 
 // 函数符号
@@ -7,8 +9,8 @@ public class FuncSymbol extends Symbol {
     //private boolean isVoid;
     private List<ValueSymbol> params; // 存储形参的符号信息
 
-    public FuncSymbol(String name, String typeName, int scopeId,List<ValueSymbol> params) {
-        super(name, typeName, scopeId);
+    public FuncSymbol(String name, SymbolType type, int scopeId,List<ValueSymbol> params) {
+        super(name, type, scopeId);
         //this.isVoid = isVoid;
         this.params = params;
     }
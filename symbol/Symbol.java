@@ -1,25 +1,36 @@
 package symbol;
 
+import symbol.types.SymbolType;
+
 import java.util.List;
 
 // 代表一个符号（变量、常量、函数）
 public abstract class Symbol implements Comparable<Symbol>{
     private String name;//本来是什么
-    private String typeName; // "ConstInt", "IntFunc", etc. for output
+    private SymbolType type; // 驻留的类型对象，可以用 == 比较
     private int scopeId;
     
     // constructor and getters...
-    public Symbol(String name, String typeName, int scopeId) {
+    public Symbol(String name, SymbolType type, int scopeId) {
         this.name = name;
-        this.typeName = typeName;
+        this.type = type;
         this.scopeId = scopeId;
     }
     public String getName() {
         return name;
     }
 
+    public SymbolType getType() {
+        return type;
+    }
+
+    // "ConstInt", "IntFunc" 等，只用于输出
     public String getTypeName() {
-        return typeName;
+        return type.getName();
+    }
+
+    public int getScopeId() {
+        return scopeId;
     }
 
     public void setScopeId(int scopeId) {
@@ -46,7 +57,7 @@ public abstract class Symbol implements Comparable<Symbol>{
     //重写toString
     @Override
     public String toString() {
-        return scopeId + " " + name + " " + typeName;
+        return scopeId + " " + name + " " + type.getName();
     }
 }
 
@@ -1,67 +1,183 @@
 package symbol;
 
-import java.util.Stack;
-import java.util.Map;
-import java.util.HashMap;
-import java.util.List;
+import frontend.NamePool;
+import frontend.Token;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+/**
+ * 符号表 (SymbolTable)
+ * 按名字编号（见 NamePool）直接索引：bindings[编号] 是该名字当前可见的、最内层的符号，
+ * 查找是一次数组访问，与作用域嵌套深度无关。
+ * 每次声明压入一条记录，保存它遮蔽的外层符号（每个名字一条遮蔽链）；
+ * 退出作用域时弹出本作用域的记录并恢复被遮蔽的符号，代价与本作用域的符号数成正比。
+ * 一次语义分析独占一个实例，不做线程同步。
+ */
 public class SymbolTable {
-    private Stack<Map<String, Symbol>> scopeStack;
-    private Stack<Integer> scopeIdStack; // 作用域序号栈
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final NamePool names;
+
+    // 名字编号 -> 当前可见的符号，及其所在作用域的深度（从1开始，0表示没有）
+    private Symbol[] bindings = new Symbol[INITIAL_CAPACITY];
+    private int[] bindingDepths = new int[INITIAL_CAPACITY];
+
+    // 声明记录栈：名字编号、被遮蔽的符号及其深度
+    private int[] entryNames = new int[INITIAL_CAPACITY];
+    private Symbol[] entryShadowed = new Symbol[INITIAL_CAPACITY];
+    private int[] entryShadowedDepths = new int[INITIAL_CAPACITY];
+    private int entryCount;
+
+    // 作用域栈：每个作用域的第一条声明记录和作用域序号
+    private int[] scopeStarts = new int[16];
+    private int[] scopeIds = new int[16];
+    private int depth;
     private int nextScopeId = 1;
 
-    // 用于最终输出
+    // 用于最终输出，不输出符号表时为null
     private List<Symbol> allSymbolsInOrder;
 
     public SymbolTable() {
-        this.scopeStack = new Stack<>();
-        this.scopeIdStack = new Stack<>();
-        this.allSymbolsInOrder = new ArrayList<>();
+        this(new NamePool());
+    }
+
+    /**
+     * @param names 词法分析使用的名字池，标识符Token中的编号可以直接使用
+     */
+    public SymbolTable(NamePool names) {
+        this(names, true);
+    }
+
+    /**
+     * @param recordSymbols 是否按顺序记录全部符号用于输出；只检查错误时不需要，离开作用域的符号随即可以回收
+     */
+    public SymbolTable(NamePool names, boolean recordSymbols) {
+        this.names = names;
+        this.allSymbolsInOrder = recordSymbols ? new ArrayList<>() : null;
     }
 
     // 进入一个新的作用域
     public void enterScope() {
-        scopeStack.push(new HashMap<>());
-        scopeIdStack.push(nextScopeId++);
+        if (depth == scopeStarts.length) {
+            scopeStarts = Arrays.copyOf(scopeStarts, depth * 2);
+            scopeIds = Arrays.copyOf(scopeIds, depth * 2);
+        }
+        scopeStarts[depth] = entryCount;
+        scopeIds[depth] = nextScopeId++;
+        depth++;
     }
 
-    // 退出当前作用域
+    // 退出当前作用域，恢复被本作用域的符号遮蔽的外层符号
     public void exitScope() {
-        scopeStack.pop();
-        scopeIdStack.pop();
+        depth--;
+        int start = scopeStarts[depth];
+        while (entryCount > start) {
+            entryCount--;
+            int id = entryNames[entryCount];
+            bindings[id] = entryShadowed[entryCount];
+            bindingDepths[id] = entryShadowedDepths[entryCount];
+            entryShadowed[entryCount] = null;
+        }
     }
 
     // 在当前作用域添加一个符号
     // 返回 true 如果成功, false 如果重定义 (错误b)
     public boolean addSymbol(Symbol symbol) {
-        Map<String, Symbol> currentScope = scopeStack.peek();
-        if (currentScope.containsKey(symbol.getName())) {
+        int id = idOf(symbol.getName());
+        if (bindingDepths[id] == depth) {
             return false; // 重定义
         }
-        symbol.setScopeId(scopeIdStack.peek());
-        currentScope.put(symbol.getName(), symbol);
-        allSymbolsInOrder.add(symbol);
+        symbol.setScopeId(getCurrentScopeId());
+        bind(id, symbol);
+        if (allSymbolsInOrder != null) {
+            allSymbolsInOrder.add(symbol);
+        }
         return true;
     }
 
-    // 查找一个符号 (从当前作用域向外层找)
+    // 查找一个符号 (当前作用域及外层中最内层的同名符号)
     // 找不到返回 null (错误c)
     public Symbol lookupSymbol(String name) {
-        for (int i = scopeStack.size() - 1; i >= 0; i--) {
-            if (scopeStack.get(i).containsKey(name)) {
-                return scopeStack.get(i).get(name);
-            }
+        return lookup(idOf(name));
+    }
+
+    /**
+     * 查找标识符Token引用的符号，Token中的名字编号属于本表的名字池时不再计算哈希
+     */
+    public Symbol lookupSymbol(Token ident) {
+        int id = ident.nameId();
+        if (id < 0 || id >= names.size() || !names.get(id).equals(ident.value())) {
+            id = idOf(ident.value());
         }
-        return null;
+        return lookup(id);
     }
-    
+
     // 获取最终的符号列表用于输出
     public List<Symbol> getAllSymbols() {
-        return allSymbolsInOrder;
+        return allSymbolsInOrder != null ? allSymbolsInOrder : new ArrayList<>();
     }
 
     public int getCurrentScopeId() {
-        return scopeIdStack.peek();
+        return scopeIds[depth - 1];
+    }
+
+    // 下一个进入的作用域将得到的序号
+    public int getNextScopeId() {
+        return nextScopeId;
+    }
+
+    // ----- 增量分析复用上一次的分析结果 -----
+
+    // 跳过count个作用域序号，这些作用域的符号由 restoreSymbol 直接恢复
+    public void skipScopes(int count) {
+        nextScopeId += count;
+    }
+
+    // 恢复一个上次分析得到的符号：加入输出列表；属于当前作用域的符号还要加入当前作用域供查找
+    public void restoreSymbol(Symbol symbol, boolean inCurrentScope) {
+        if (inCurrentScope) {
+            int id = idOf(symbol.getName());
+            if (bindingDepths[id] == depth) {
+                bindings[id] = symbol; // 与同名符号在同一作用域，直接覆盖
+            } else {
+                bind(id, symbol);
+            }
+        }
+        if (allSymbolsInOrder != null) {
+            allSymbolsInOrder.add(symbol);
+        }
+    }
+
+    private Symbol lookup(int id) {
+        return id < bindings.length ? bindings[id] : null;
+    }
+
+    // 名字编号，并保证按编号索引的数组足够大
+    private int idOf(String name) {
+        int id = names.intern(name);
+        if (id >= bindings.length) {
+            int capacity = Math.max(bindings.length * 2, names.size());
+            bindings = Arrays.copyOf(bindings, capacity);
+            bindingDepths = Arrays.copyOf(bindingDepths, capacity);
+        }
+        return id;
+    }
+
+    // 在当前作用域绑定名字，记录被遮蔽的外层符号
+    private void bind(int id, Symbol symbol) {
+        if (entryCount == entryNames.length) {
+            int capacity = entryCount * 2;
+            entryNames = Arrays.copyOf(entryNames, capacity);
+            entryShadowed = Arrays.copyOf(entryShadowed, capacity);
+            entryShadowedDepths = Arrays.copyOf(entryShadowedDepths, capacity);
+        }
+        entryNames[entryCount] = id;
+        entryShadowed[entryCount] = bindings[id];
+        entryShadowedDepths[entryCount] = bindingDepths[id];
+        entryCount++;
+        bindings[id] = symbol;
+        bindingDepths[id] = depth;
     }
-}
\ No newline at end of file
+}
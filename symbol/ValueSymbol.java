@@ -1,18 +1,50 @@
 package symbol;
 
+import symbol.types.SymbolType;
+
 // 变量/常量/形参 符号
 public class ValueSymbol extends Symbol {
+    private int arrayLength = -1; // 数组长度（编译期求值），不是数组或无法求值时为-1
+    private int[] constValues;    // 常量的值，数组按下标展开，未写出的元素为0；不是常量时为null
+
 
+    public ValueSymbol(String name, SymbolType type, int scopeId) {
+        super(name, type, scopeId);
+
+    }
 
-    public ValueSymbol(String name, String typeName, int scopeId) {
-        super(name, typeName, scopeId);
+    public int getArrayLength() {
+        return arrayLength;
+    }
+
+    public void setArrayLength(int arrayLength) {
+        this.arrayLength = arrayLength;
+    }
+
+    // 值在编译期已知（const 且初值可以求值）
+    public boolean hasConstValue() {
+        return constValues != null;
+    }
+
+    // 常量标量的值
+    public int getConstValue() {
+        return constValues[0];
+    }
+
+    // 常量数组的第index个元素，下标越界时返回null
+    public Integer getConstValue(int index) {
+        if (index < 0 || index >= constValues.length) {
+            return null;
+        }
+        return constValues[index];
+    }
 
+    // 展开的全部值，用于生成静态数据
+    public int[] getConstValues() {
+        return constValues;
     }
 
-    public String getTypeName() {
-        return super.getTypeName();
+    public void setConstValues(int[] constValues) {
+        this.constValues = constValues;
     }
-    // 可能还需要存储维度信息
-    
-    // constructor...
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package symbol.types;
+
+/**
+ * 符号和表达式的类型 (SymbolType)
+ * 由种类和数组维数组成。所有实例在类加载时一次性创建并驻留，
+ * 同一类型只有一个对象，可以直接用 == 比较；实例不可变，多个编译线程可以共用。
+ * 类型名（如 "ConstIntArray"）只在输出 symbol.txt 时使用。
+ */
+public final class SymbolType {
+    public static final int MAX_DIMS = 8;
+
+    private static final TypeKind[] KINDS = TypeKind.values();
+    private static final SymbolType[][] INTERNED = new SymbolType[KINDS.length][MAX_DIMS + 1];
+
+    static {
+        for (TypeKind kind : KINDS) {
+            for (int dims = 0; dims <= MAX_DIMS; dims++) {
+                INTERNED[kind.ordinal()][dims] = new SymbolType(kind, dims);
+            }
+        }
+    }
+
+    public static final SymbolType INT = of(TypeKind.INT, 0);
+    public static final SymbolType INT_ARRAY = of(TypeKind.INT, 1);
+    public static final SymbolType CONST_INT = of(TypeKind.CONST_INT, 0);
+    public static final SymbolType CONST_INT_ARRAY = of(TypeKind.CONST_INT, 1);
+    public static final SymbolType STATIC_INT = of(TypeKind.STATIC_INT, 0);
+    public static final SymbolType STATIC_INT_ARRAY = of(TypeKind.STATIC_INT, 1);
+    public static final SymbolType VOID = of(TypeKind.VOID, 0);
+    public static final SymbolType INT_FUNC = of(TypeKind.INT_FUNC, 0);
+    public static final SymbolType VOID_FUNC = of(TypeKind.VOID_FUNC, 0);
+
+    private final TypeKind kind;
+    private final int dims;
+    private final String name;
+
+    private SymbolType(TypeKind kind, int dims) {
+        this.kind = kind;
+        this.dims = dims;
+        this.name = dims == 0 ? kind.getName() : kind.getName() + "Array".repeat(dims);
+    }
+
+    /**
+     * 取得驻留的类型对象
+     */
+    public static SymbolType of(TypeKind kind, int dims) {
+        if (dims < 0 || dims > MAX_DIMS) {
+            throw new IllegalArgumentException("unsupported array dimensions: " + dims);
+        }
+        return INTERNED[kind.ordinal()][dims];
+    }
+
+    public TypeKind getKind() {
+        return kind;
+    }
+
+    public int getDims() {
+        return dims;
+    }
+
+    public boolean isArray() {
+        return dims > 0;
+    }
+
+    public boolean isConst() {
+        return kind == TypeKind.CONST_INT;
+    }
+
+    public boolean isFunction() {
+        return kind == TypeKind.INT_FUNC || kind == TypeKind.VOID_FUNC;
+    }
+
+    /**
+     * 数组取一次下标后的类型
+     */
+    public SymbolType element() {
+        return of(kind, dims - 1);
+    }
+
+    /**
+     * 函数类型的返回值类型：INT 或 VOID
+     */
+    public SymbolType returnType() {
+        return kind == TypeKind.VOID_FUNC ? VOID : INT;
+    }
+
+    /**
+     * symbol.txt 中的类型名
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
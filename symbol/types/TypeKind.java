@@ -0,0 +1,24 @@
+package symbol.types;
+
+/**
+ * 类型的种类：基本类型及其修饰（const/static），或函数的返回值类型
+ * name 是 symbol.txt 中输出的类型名前缀，数组类型再加上 "Array"
+ */
+public enum TypeKind {
+    INT("Int"),
+    CONST_INT("ConstInt"),
+    STATIC_INT("StaticInt"),
+    VOID("Void"),           // 只作为表达式（void函数调用）的类型
+    INT_FUNC("IntFunc"),
+    VOID_FUNC("VoidFunc");
+
+    private final String name;
+
+    TypeKind(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
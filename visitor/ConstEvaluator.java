@@ -0,0 +1,163 @@
+package visitor;
+
+import ast.Expression;
+import ast.ExpressionVisitor;
+import ast.declarationNodes.InitVal;
+import ast.expressionNodes.*;
+import frontend.TokenType;
+import symbol.Symbol;
+import symbol.ValueSymbol;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * 编译期常量求值器 (ConstEvaluator)
+ * 对表达式子树求值：数字、已知值的常量（包括用常量下标访问常量数组的元素）及它们的运算。
+ * 依赖语义分析在 LVal 上绑定的符号，因此要在表达式被访问过之后才能求值。
+ * 每个子树的结果按节点身份缓存，同一个表达式被多次询问（数组长度、初值、代码生成）时只求值一次。
+ * 运算按32位有符号整数回绕，与目标代码一致；除数为0等情况视为不是常量。
+ */
+public class ConstEvaluator {
+    private final IdentityHashMap<Expression, Integer> memo = new IdentityHashMap<>();
+
+    /**
+     * @return 表达式的值，不是编译期常量时返回null
+     */
+    public Integer evaluate(Expression exp) {
+        if (exp == null) {
+            return null;
+        }
+        Integer value = memo.get(exp);
+        if (value != null || memo.containsKey(exp)) {
+            return value;
+        }
+        value = exp.accept(computer);
+        memo.put(exp, value);
+        return value;
+    }
+
+    /**
+     * 把初值求值并展开成长度为length的数组，未写出的元素补0；
+     * length为-1时按初值的个数。有元素不是常量时返回null
+     */
+    public int[] evaluateInitVal(InitVal init, int length) {
+        if (init.isExpression) {
+            Integer value = evaluate(init.getSingleValue());
+            return value == null ? null : new int[]{value};
+        }
+        List<Expression> list = init.getListValue();
+        int count = list == null ? 0 : list.size();
+        int[] values = new int[Math.max(length, count)];
+        for (int i = 0; i < count; i++) {
+            Integer value = evaluate(list.get(i));
+            if (value == null) {
+                return null;
+            }
+            values[i] = value;
+        }
+        return length >= 0 && count > length ? Arrays.copyOf(values, length) : values;
+    }
+
+    // 按节点类型分派到下面的 compute 方法
+    private final ExpressionVisitor<Integer> computer = new ExpressionVisitor<>() {
+        public Integer visit(BinaryExp node) { return computeBinary(node); }
+        public Integer visit(UnaryExp node) { return computeUnary(node); }
+        public Integer visit(LVal node) { return computeLVal(node); }
+        public Integer visit(FuncCall node) { return null; } // 函数调用不是常量
+        public Integer visit(NumberLiteral node) { return computeNumber(node); }
+    };
+
+    private Integer computeNumber(NumberLiteral number) {
+        try {
+            return number.getValue();
+        } catch (NumberFormatException e) {
+            return null; // 超出int范围的字面量
+        }
+    }
+
+    private Integer computeUnary(UnaryExp unary) {
+        Integer operand = evaluate(unary.operand);
+        if (operand == null) {
+            return null;
+        }
+        switch (unary.op.type()) {
+            case PLUS:
+                return operand;
+            case MINU:
+                return -operand;
+            case NOT:
+                return operand == 0 ? 1 : 0;
+            default:
+                return null;
+        }
+    }
+
+    private Integer computeLVal(LVal lval) {
+        Symbol symbol = lval.getSymbol();
+        if (!(symbol instanceof ValueSymbol) || !((ValueSymbol) symbol).hasConstValue()) {
+            return null;
+        }
+        ValueSymbol constant = (ValueSymbol) symbol;
+        if (!constant.getType().isArray()) {
+            return lval.exp == null ? constant.getConstValue(0) : null;
+        }
+        if (lval.exp == null) {
+            return null; // 整个数组不是一个值
+        }
+        // 常量数组用常量下标访问：直接取出元素，不需要在运行时读内存
+        Integer index = evaluate(lval.exp);
+        return index == null ? null : constant.getConstValue(index);
+    }
+
+    private Integer computeBinary(BinaryExp binary) {
+        TokenType op = binary.op.type();
+        Integer left = evaluate(binary.left);
+        if (left == null) {
+            return null;
+        }
+        // 短路运算：左边已经决定结果时不要求右边是常量
+        if (op == TokenType.AND && left == 0) {
+            return 0;
+        }
+        if (op == TokenType.OR && left != 0) {
+            return 1;
+        }
+        Integer right = evaluate(binary.right);
+        if (right == null) {
+            return null;
+        }
+        int a = left;
+        int b = right;
+        switch (op) {
+            case PLUS:
+                return a + b;
+            case MINU:
+                return a - b;
+            case MULT:
+                return a * b;
+            case DIV:
+                return b == 0 ? null : a / b;
+            case MOD:
+                return b == 0 ? null : a % b;
+            case LSS:
+                return a < b ? 1 : 0;
+            case LEQ:
+                return a <= b ? 1 : 0;
+            case GRE:
+                return a > b ? 1 : 0;
+            case GEQ:
+                return a >= b ? 1 : 0;
+            case EQL:
+                return a == b ? 1 : 0;
+            case NEQ:
+                return a != b ? 1 : 0;
+            case AND:
+            case OR:
+                return b != 0 ? 1 : 0;
+            default:
+                return null;
+        }
+    }
+}
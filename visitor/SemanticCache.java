@@ -0,0 +1,75 @@
+package visitor;
+
+import ast.Declaration;
+import ast.Expression;
+import error.SemanticError;
+import symbol.Symbol;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * 语义分析结果缓存 (SemanticCache)
+ * 与增量语法分析配合使用：按顶层声明（语法树子树对象）缓存它的语义分析结果。
+ * 一个顶层声明的子树被复用、且它之前的全局符号没有变化时，分析结果必然相同，
+ * 直接恢复缓存的符号和错误，不再遍历子树。
+ * 只保留最近一次分析用到的声明，被删除或重新分析的声明自然淘汰。
+ */
+public class SemanticCache {
+    // 一个顶层声明的分析结果
+    static class Entry {
+        final long globalsHash;           // 分析之前全局作用域内符号的哈希
+        final List<Symbol> symbols;       // 加入的全部符号，按加入顺序
+        final boolean[] global;           // 对应符号是否加入了全局作用域
+        final int[] scopeOffsets;         // 非全局符号的作用域序号相对第一个新作用域的偏移
+        final int scopeCount;             // 用掉的作用域个数
+        final List<SemanticError> errors; // 错误，行号为语法树中的行号
+        final List<Expression> globalRefs; // 解析到全局符号的LVal/FuncCall，恢复时重新绑定
+
+        Entry(long globalsHash, List<Symbol> symbols, boolean[] global, int[] scopeOffsets,
+              int scopeCount, List<SemanticError> errors, List<Expression> globalRefs) {
+            this.globalsHash = globalsHash;
+            this.symbols = symbols;
+            this.global = global;
+            this.scopeOffsets = scopeOffsets;
+            this.scopeCount = scopeCount;
+            this.errors = errors;
+            this.globalRefs = globalRefs;
+        }
+    }
+
+    private IdentityHashMap<Declaration, Entry> entries = new IdentityHashMap<>();
+    private IdentityHashMap<Declaration, Entry> current = new IdentityHashMap<>();
+    private int reusedCount;
+
+    // 开始一次分析
+    void begin() {
+        current = new IdentityHashMap<>();
+        reusedCount = 0;
+    }
+
+    // 结束一次分析，只保留本次用到的结果
+    void end() {
+        entries = current;
+    }
+
+    Entry lookup(Declaration declaration, long globalsHash) {
+        Entry entry = entries.get(declaration);
+        if (entry == null || entry.globalsHash != globalsHash) {
+            return null;
+        }
+        reusedCount++;
+        return entry;
+    }
+
+    void put(Declaration declaration, Entry entry) {
+        current.put(declaration, entry);
+    }
+
+    /**
+     * 上一次分析中直接复用结果的顶层声明个数
+     */
+    public int getReusedCount() {
+        return reusedCount;
+    }
+}
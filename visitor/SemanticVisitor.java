@@ -2,8 +2,10 @@ package visitor;
 
 import ast.Declaration;
 import ast.Expression;
+import ast.ExpressionVisitor;
 import ast.Node; // etc.
 import ast.Statement;
+import ast.StatementVisitor;
 import ast.declarationNodes.InitVal;
 import ast.declarationNodes.VarDecl;
 import ast.declarationNodes.VarDef;
@@ -13,32 +15,69 @@ import ast.topLevelNodes.CompUnit;
 import ast.topLevelNodes.FuncDef;
 import ast.topLevelNodes.FuncParam;
 import ast.topLevelNodes.mainFuncDef;
+import codegen.LLVMIRGenerator;
+import codegen.ir.Module;
+import codegen.ir.values.Value;
 import error.CompilerError;
 import error.SemanticError;
+import frontend.NamePool;
 import frontend.Token;
 import frontend.TokenType;
 import symbol.FuncSymbol;
 import symbol.Symbol;
 import symbol.SymbolTable;
 import symbol.ValueSymbol;
+import symbol.types.SymbolType;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
 
-public class SemanticVisitor {
+public class SemanticVisitor implements StatementVisitor, ExpressionVisitor<Value> {
     private SymbolTable symbolTable;
     private List<CompilerError> errors;
 
     // 状态维护
     private FuncSymbol currentFunction; // 用于检查 return 语句
     private int loopDepth; // 用于检查 break/continue
+    private final ConstEvaluator constEvaluator = new ConstEvaluator(); // 数组长度、常量初值的编译期求值
+
+    // 增量分析
+    private final SemanticCache cache;        // 按顶层声明缓存的分析结果，普通分析时为null
+    private int lineShift;                    // 当前顶层声明的行号修正量，见 CompUnit.getLineShift
+    private List<SemanticError> itemErrors;   // 当前顶层声明的错误（语法树中的行号），用于存入缓存
+    private List<Expression> itemGlobalRefs;  // 当前顶层声明中解析到全局符号的LVal/FuncCall，用于存入缓存
+    private int globalScopeId;
+
+    // 融合模式：检查的同时生成IR，只做检查时为null。表达式的visit方法返回生成的值，不生成时返回null
+    private LLVMIRGenerator ir;
 
     public SemanticVisitor() {
-        this.symbolTable = new SymbolTable();
+        this(new NamePool(), null);
+    }
+
+    /**
+     * @param names 词法分析使用的名字池，符号表直接用标识符Token中的名字编号查找
+     */
+    public SemanticVisitor(NamePool names) {
+        this(names, null);
+    }
+
+    /**
+     * 使用缓存的语义分析器：分析增量语法分析得到的语法树时，复用上一次分析中未变化的顶层声明的结果。
+     * 使用新的名字池，查找符号时要按名字计算哈希；与 IncrementalParser 配合时应传入它的名字池（见 getNames）
+     */
+    public SemanticVisitor(SemanticCache cache) {
+        this(new NamePool(), cache);
+    }
+
+    public SemanticVisitor(NamePool names, SemanticCache cache) {
+        this.symbolTable = new SymbolTable(names);
         this.errors = new ArrayList<>();
         this.currentFunction = null;
         this.loopDepth = 0;
+        this.cache = cache;
     }
 
 
@@ -47,10 +86,52 @@ public class SemanticVisitor {
         visit(root);
     }
     
+    /**
+     * 融合模式：一次遍历完成语义检查和IR生成，用于已知没有错误的输入（例如上一次编译成功的同一份源程序）。
+     * 有错误时生成的IR没有意义，调用方应检查 getErrors() 后丢弃。
+     * 不能与增量分析同时使用：从缓存恢复的顶层声明不会被遍历，也就不会生成代码；
+     * 增量分析后请用 LLVMIRGenerator.generate 单独生成
+     */
+    public Module analyzeAndGenerate(CompUnit root) {
+        if (cache != null) {
+            throw new IllegalStateException("fused IR generation does not support a semantic cache");
+        }
+        ir = new LLVMIRGenerator(constEvaluator);
+        visit(root);
+        Module module = ir.getModule();
+        ir = null;
+        return module;
+    }
+
+    /**
+     * 只检查错误的分析器：不记录符号列表（不输出 symbol.txt），
+     * 配合 beginCompUnit / visit(Declaration) / endCompUnit 逐个分析顶层声明，分析过的语法树即可丢弃
+     */
+    public static SemanticVisitor forDiagnostics(NamePool names) {
+        SemanticVisitor visitor = new SemanticVisitor(names, null);
+        visitor.symbolTable = new SymbolTable(names, false);
+        return visitor;
+    }
+
     public List<CompilerError> getErrors() {
         return errors;
     }
 
+    /**
+     * 本次分析使用的常量求值器，后续阶段用它把常量表达式直接变成立即数
+     */
+    public ConstEvaluator getConstEvaluator() {
+        return constEvaluator;
+    }
+
+    // 记录错误，行号修正为实际行号
+    private void addError(int lineNum, String errorCode) {
+        errors.add(new SemanticError(lineNum + lineShift, errorCode));
+        if (itemErrors != null) {
+            itemErrors.add(new SemanticError(lineNum, errorCode));
+        }
+    }
+
     public List<Symbol> getAllSymbols() {
         List<Symbol> orderedSymbols = symbolTable.getAllSymbols();
         Collections.sort(orderedSymbols);
@@ -63,23 +144,145 @@ public class SemanticVisitor {
     // ...
     // in SemanticVisitor.java
     public void visit(CompUnit node) {
+        beginCompUnit();
+        long globalsHash = 0; // 已加入全局作用域的符号的哈希
+        if(node.getDeclarations() != null) {
+            List<Declaration> declarations = node.getDeclarations();
+            for (int i = 0; i < declarations.size(); i++) {
+                Declaration decl = declarations.get(i);
+                lineShift = node.getLineShift(i);
+                int symbolMark = symbolTable.getAllSymbols().size();
+                SemanticCache.Entry cached = cache == null ? null : cache.lookup(decl, globalsHash);
+                if (cached != null) {
+                    restore(cached);
+                    cache.put(decl, cached);
+                } else {
+                    int firstScopeId = symbolTable.getNextScopeId();
+                    if (cache != null) {
+                        itemErrors = new ArrayList<>();
+                        itemGlobalRefs = new ArrayList<>();
+                    }
+                    visit(decl);
+                    if (cache != null) {
+                        cache.put(decl, capture(globalsHash, symbolMark, firstScopeId, itemErrors, itemGlobalRefs));
+                        itemErrors = null;
+                        itemGlobalRefs = null;
+                    }
+                }
+                if (cache != null) {
+                    globalsHash = hashGlobals(globalsHash, symbolMark);
+                }
+            }
+        }
+        endCompUnit();
+    }
+
+    // ----- 顶层声明逐个到达时的分析入口（不需要整棵语法树）-----
+
+    // 进入全局作用域，预定义库函数
+    public void beginCompUnit() {
         symbolTable.enterScope(); // 进入全局作用域 (scopeId = 1)
+        globalScopeId = symbolTable.getCurrentScopeId();
 
         // 可以预定义一些库函数, 比如 getint()
         // symbolTable.addSymbol(new FuncSymbol("getint", "IntFunc", ...));
-        symbolTable.addSymbol(new FuncSymbol("getint", "IntFunc", 1, null));
-        if(node.getDeclarations() != null) {
-            for (Declaration decl : node.getDeclarations()) {
-                // VarDecl, FuncDef, mainFuncDef 都被视为 Declaration
-                if (decl instanceof VarDecl) visit((VarDecl) decl);
-                if (decl instanceof FuncDef) visit((FuncDef) decl);
-                if (decl instanceof mainFuncDef) visit((mainFuncDef) decl);
-            }
+        FuncSymbol getint = new FuncSymbol("getint", SymbolType.INT_FUNC, 1, null);
+        symbolTable.addSymbol(getint);
+        if (ir != null) {
+            ir.bindRuntime(getint);
+        }
+        if (cache != null) {
+            cache.begin();
+        }
+    }
+
+    // 分析一个顶层声明
+    public void visit(Declaration decl) {
+        // VarDecl, FuncDef, mainFuncDef 都被视为 Declaration
+        decl.accept(this);
+    }
+
+    public void endCompUnit() {
+        lineShift = 0;
+        if (cache != null) {
+            cache.end();
         }
 
         symbolTable.exitScope(); // 退出全局作用域
     }
 
+    // ----- 增量分析：缓存与恢复一个顶层声明的分析结果 -----
+
+    private SemanticCache.Entry capture(long globalsHash, int symbolMark, int firstScopeId,
+                                        List<SemanticError> declErrors, List<Expression> globalRefs) {
+        List<Symbol> all = symbolTable.getAllSymbols();
+        List<Symbol> symbols = new ArrayList<>(all.subList(symbolMark, all.size()));
+        boolean[] global = new boolean[symbols.size()];
+        int[] scopeOffsets = new int[symbols.size()];
+        int globalScopeId = symbolTable.getCurrentScopeId();
+        for (int i = 0; i < symbols.size(); i++) {
+            global[i] = symbols.get(i).getScopeId() == globalScopeId;
+            scopeOffsets[i] = symbols.get(i).getScopeId() - firstScopeId;
+        }
+        int scopeCount = symbolTable.getNextScopeId() - firstScopeId;
+        return new SemanticCache.Entry(globalsHash, symbols, global, scopeOffsets, scopeCount, declErrors,
+                globalRefs);
+    }
+
+    private void restore(SemanticCache.Entry entry) {
+        int firstScopeId = symbolTable.getNextScopeId();
+        int globalScopeId = symbolTable.getCurrentScopeId();
+        for (int i = 0; i < entry.symbols.size(); i++) {
+            Symbol symbol = entry.symbols.get(i);
+            symbol.setScopeId(entry.global[i] ? globalScopeId : firstScopeId + entry.scopeOffsets[i]);
+            symbolTable.restoreSymbol(symbol, entry.global[i]);
+        }
+        symbolTable.skipScopes(entry.scopeCount);
+        // 子树中的局部符号随缓存一起恢复，仍然有效；全局符号可能由重新分析的声明新建，需要重新绑定
+        for (Expression ref : entry.globalRefs) {
+            if (ref instanceof LVal) {
+                resolve((LVal) ref);
+            } else {
+                resolve((FuncCall) ref);
+            }
+        }
+        for (SemanticError error : entry.errors) {
+            errors.add(new SemanticError(error.getLineNum() + lineShift, error.getErrorType()));
+        }
+    }
+
+    // 把symbolMark之后加入全局作用域的符号（名字、类型、形参类型）并入哈希
+    private long hashGlobals(long hash, int symbolMark) {
+        List<Symbol> all = symbolTable.getAllSymbols();
+        int globalScopeId = symbolTable.getCurrentScopeId();
+        for (int i = symbolMark; i < all.size(); i++) {
+            Symbol symbol = all.get(i);
+            if (symbol.getScopeId() != globalScopeId) {
+                continue;
+            }
+            hash = hash * 31 + symbol.getName().hashCode();
+            hash = hash * 31 + typeHash(symbol.getType());
+            if (symbol instanceof ValueSymbol) {
+                // 全局常量的值和数组长度会被后面的常量表达式用到
+                ValueSymbol value = (ValueSymbol) symbol;
+                hash = hash * 31 + value.getArrayLength();
+                hash = hash * 31 + Arrays.hashCode(value.getConstValues());
+            }
+            if (symbol instanceof FuncSymbol && ((FuncSymbol) symbol).getParams() != null) {
+                for (ValueSymbol param : ((FuncSymbol) symbol).getParams()) {
+                    hash = hash * 31 + typeHash(param.getType());
+                }
+            }
+            hash = hash * 0x9E3779B97F4A7C15L;
+        }
+        return hash;
+    }
+
+    // 类型对象是驻留的，但身份哈希每次运行不同；用种类和维数得到稳定的哈希
+    private static int typeHash(SymbolType type) {
+        return type.getKind().ordinal() * 31 + type.getDims();
+    }
+
     public void visit(VarDecl node) {
         if(node.varDefs == null) return;
         for (VarDef def : node.varDefs) {
@@ -88,43 +291,63 @@ public class SemanticVisitor {
                 visit(def.indexExp);
             }
             // 先访问初始化表达式
+            List<Value> init = null;
             if (def.initialValue != null) {
-                visit(def.initialValue);
+                init = visit(def.initialValue);
             }
             
             // 最后才添加符号到符号表
-            Symbol newSymbol = createValueSymbolFromValDecl(def, node.isConst, node.isStatic);
-            if (!symbolTable.addSymbol(newSymbol)) {
-                errors.add(new SemanticError(def.ident.lineNum(), "b"));
+            ValueSymbol newSymbol = createValueSymbolFromValDecl(def, node.isConst, node.isStatic);
+            // 数组长度和常量的初值在编译期求值，存入符号
+            if (def.indexExp != null) {
+                Integer length = constEvaluator.evaluate(def.indexExp);
+                if (length != null && length >= 0) {
+                    newSymbol.setArrayLength(length);
+                }
+            }
+            if (node.isConst && def.initialValue != null) {
+                newSymbol.setConstValues(constEvaluator.evaluateInitVal(def.initialValue, newSymbol.getArrayLength()));
+            }
+            boolean added = symbolTable.addSymbol(newSymbol);
+            if (!added) {
+                addError(def.ident.lineNum(), "b");
+            }
+            def.bind(added ? newSymbol : null); // 之后生成代码时只定义加入了符号表的变量
+            if (added && ir != null) {
+                if (currentFunction == null) {
+                    ir.defineGlobal(newSymbol, def);
+                } else {
+                    ir.defineLocal(newSymbol, def, init);
+                }
             }
         }
     }
 
-    public Symbol createValueSymbolFromValDecl(VarDef def, boolean isConst, boolean isStatic) {
+    public ValueSymbol createValueSymbolFromValDecl(VarDef def, boolean isConst, boolean isStatic) {
         String name = def.ident.value();
 
         int scopeId = symbolTable.getCurrentScopeId();
         //return new Symbol(name, typeName, scopeId);
         if (isConst) {
             if (def.indexExp ==  null) {
-                return new ValueSymbol(name, "ConstInt", scopeId);
+                return new ValueSymbol(name, SymbolType.CONST_INT, scopeId);
             } else {
-                return new ValueSymbol(name, "ConstIntArray", scopeId);
+                return new ValueSymbol(name, SymbolType.CONST_INT_ARRAY, scopeId);
             }
         } else {
             if (def.indexExp ==  null) {
                 //return new ValueSymbol(name, "Int", scopeId);
                 if (isStatic) {
-                    return new ValueSymbol(name, "StaticInt", scopeId);
+                    return new ValueSymbol(name, SymbolType.STATIC_INT, scopeId);
                 } else {
-                    return new ValueSymbol(name, "Int", scopeId);
+                    return new ValueSymbol(name, SymbolType.INT, scopeId);
                 }
             } else {
                 //return new ValueSymbol(name, "Array", scopeId);
                 if (isStatic) {
-                    return new ValueSymbol(name, "StaticIntArray", scopeId);
+                    return new ValueSymbol(name, SymbolType.STATIC_INT_ARRAY, scopeId);
                 }else {
-                    return new ValueSymbol(name, "IntArray", scopeId);
+                    return new ValueSymbol(name, SymbolType.INT_ARRAY, scopeId);
                 }
             }
         }
@@ -135,17 +358,25 @@ public class SemanticVisitor {
         //检查函数名是否重定义
         FuncSymbol funcSymbol = createSymbolFromFuncDef(node);
         if (!symbolTable.addSymbol(funcSymbol)) {
-            errors.add(new SemanticError(node.ident.lineNum(), "b"));
+            addError(node.ident.lineNum(), "b");
         }
+        node.bind(funcSymbol);
         this.currentFunction = funcSymbol;//设置函数上下文
+        if (ir != null) {
+            ir.beginFunction(funcSymbol);
+        }
         symbolTable.enterScope();
         // 添加形参到新作用域
         if (node.getParams() != null) {
             for (FuncParam param : node.getParams()) {
-                Symbol paramSymbol = createValueSymbolFromFuncDef(param);
+                ValueSymbol paramSymbol = createValueSymbolFromFuncDef(param);
                 // 错误检查b: 形参名重定义
                 if (!symbolTable.addSymbol(paramSymbol)) {
-                    errors.add(new SemanticError(param.ident.lineNum(), "b"));
+                    addError(param.ident.lineNum(), "b");
+                }
+                param.bind(paramSymbol);
+                if (ir != null) {
+                    ir.defineParam(paramSymbol);
                 }
             }
         }
@@ -162,7 +393,10 @@ public class SemanticVisitor {
 //                (items.get(items.size() - 1) instanceof ReturnStmt);
 
         if (!hasReturn && node.funcType.type() != TokenType.VOIDTK) {
-            errors.add(new SemanticError(body.rightBrace.lineNum(), "g"));
+            addError(body.rightBrace.lineNum(), "g");
+        }
+        if (ir != null) {
+            ir.endFunction();
         }
 
             symbolTable.exitScope(); // 退出函数作用域
@@ -170,32 +404,36 @@ public class SemanticVisitor {
     }
 
 
-    private Symbol createValueSymbolFromFuncDef(FuncParam param) {
+    private ValueSymbol createValueSymbolFromFuncDef(FuncParam param) {
         String name = param.ident.value();
         int scopeId = symbolTable.getCurrentScopeId();
         if (param.isArray) {
-            return new ValueSymbol(name, "IntArray", scopeId);
+            return new ValueSymbol(name, SymbolType.INT_ARRAY, scopeId);
         } else {
-            return new ValueSymbol(name, "Int", scopeId);
+            return new ValueSymbol(name, SymbolType.INT, scopeId);
         }
     }
 
     private FuncSymbol createSymbolFromFuncDef(FuncDef node) {
         boolean isVoid = node.funcType.type() == TokenType.VOIDTK;
         List<ValueSymbol> valueSymbols = node.paramsToSymbols(symbolTable.getCurrentScopeId()+1);
-        return new FuncSymbol(node.ident.value(), isVoid ?  "VoidFunc" : "IntFunc"
+        return new FuncSymbol(node.ident.value(), isVoid ? SymbolType.VOID_FUNC : SymbolType.INT_FUNC
                 , symbolTable.getCurrentScopeId(),valueSymbols);
     }
 
     private FuncSymbol createSymbolFromFuncDef(mainFuncDef node) {
-        return new FuncSymbol("main", "IntFunc", symbolTable.getCurrentScopeId(),null);
+        return new FuncSymbol("main", SymbolType.INT_FUNC, symbolTable.getCurrentScopeId(),null);
     }
 
     public void visit(mainFuncDef node) {
         FuncSymbol symbolFromFuncDef = createSymbolFromFuncDef(node);
+        node.bind(symbolFromFuncDef);
         this.currentFunction = symbolFromFuncDef;
+        if (ir != null) {
+            ir.beginFunction(symbolFromFuncDef);
+        }
         //if (!symbolTable.addSymbol(symbolFromFuncDef)) {
-            //errors.add(new SemanticError(node.getLineNum(), "b"));
+            //addError(node.getLineNum(), "b");
         //}
 
 
@@ -208,7 +446,10 @@ public class SemanticVisitor {
         boolean hasReturn = !items.isEmpty() && (items.get(items.size() - 1) instanceof ReturnStmt);
 
         if (!hasReturn) {
-            errors.add(new SemanticError(body.rightBrace.lineNum(), "g"));
+            addError(body.rightBrace.lineNum(), "g");
+        }
+        if (ir != null) {
+            ir.endFunction();
         }
 
 
@@ -218,16 +459,21 @@ public class SemanticVisitor {
 
     }
 
-    public void visit(InitVal node) {
+    // 返回按顺序求出的初值，不生成IR时为null
+    public List<Value> visit(InitVal node) {
+        List<Value> values = ir == null ? null : new ArrayList<>();
         if(node.isExpression) {
-            visit(node.getSingleValue());
+            Value value = visit(node.getSingleValue());
+            if (values != null) values.add(value);
         }else{
             if (node.getListValue() != null) {
                 for (Expression exp : node.getListValue()) {
-                    visit(exp);
+                    Value value = visit(exp);
+                    if (values != null) values.add(value);
                 }
             }
         }
+        return values;
     }
 
     public void visit(Block node,boolean isFunc) {
@@ -247,53 +493,51 @@ public class SemanticVisitor {
 
     public void visit(Statement node) {
         if (node ==  null) return;
-        if (node instanceof AssignStmt) visit((AssignStmt) node);
-        if (node instanceof IfStmt) visit((IfStmt) node);
-        if (node instanceof ForStmt) visit((ForStmt) node);
-        if (node instanceof Block) visit((Block) node, false);
-        if (node instanceof ReturnStmt) visit((ReturnStmt) node);
-        if (node instanceof BreakStmt) visit((BreakStmt) node);
-        if (node instanceof ContinueStmt) visit((ContinueStmt) node);
-        if (node instanceof PrintfStmt) visit((PrintfStmt) node);
-        if (node instanceof ExpStmt) visit((ExpStmt) node);
-        if (node instanceof VarDecl) visit((VarDecl) node);
+        node.accept(this); // 按节点类型分派到下面的 visit
     }
 
     public void visit(AssignStmt node) {
 
         Token ident = node.lval.ident;
         //逐级查表，看看变量有没有定义过
-        Symbol symbol = symbolTable.lookupSymbol(ident.value());
+        Symbol symbol = resolve(node.lval);
         if(symbol == null) {
             //检查是否未定义
-            //errors.add(new SemanticError(ident.lineNum(), "c"));
+            //addError(ident.lineNum(), "c");
         }
         else if (symbol instanceof ValueSymbol) {
             //检查是否是const
             ValueSymbol valueSymbol = (ValueSymbol) symbol;
-            if (valueSymbol.getTypeName().startsWith("Const")) {
-                errors.add(new SemanticError(ident.lineNum(), "h"));
+            if (valueSymbol.getType().isConst()) {
+                addError(ident.lineNum(), "h");
             }
         }
 
-        visit(node.lval);
+        Value index = checkLVal(node.lval);
 
 //        if (node.lval.exp != null) {
 //            visit(node.lval.exp);//计算数组indexExp
 //        }
 
+        Value value = null;
         if (node.value != null) {
-            visit(node.value);//计算初值？
+            value = visit(node.value);//计算初值？
+        }
+        if (ir != null) {
+            ir.store(node.lval, index, value);
         }
     }
 
 
     public void visit(IfStmt node) {
-        visit(node.condition);
+        Value condition = visit(node.condition);
+        LLVMIRGenerator.Branch branch = ir == null ? null : ir.beginIf(condition);
         visit(node.thenBranch);
         if (node.elseBranch != null) {
+            if (ir != null) ir.beginElse(branch);
             visit(node.elseBranch);
         }
+        if (ir != null) ir.endIf(branch);
     }
 
     public void visit(ForStmt node) {
@@ -302,40 +546,53 @@ public class SemanticVisitor {
                 visit(assignStmt);
             }
         }
+        LLVMIRGenerator.Loop loop = ir == null ? null : ir.beginLoop();
+        Value condition = null;
         if (node.condition != null) {
-            visit(node.condition);
+            condition = visit(node.condition);
         }
+        if (ir != null) ir.loopUpdate(loop, condition);
         if (node.update != null) {
             for (AssignStmt assignStmt : node.update) {
                 visit(assignStmt);
             }
         }
+        if (ir != null) ir.loopBody(loop);
         loopDepth++;
         visit(node.body);
         loopDepth--;
+        if (ir != null) ir.endLoop(loop);
     }
 
     public void visit(ReturnStmt node) {
         // 在这里检查：如果当前在void函数中，且returnValue不为null，报f错误
         if (currentFunction != null &&
-                currentFunction.getTypeName().equals("VoidFunc") &&
+                currentFunction.getType() == SymbolType.VOID_FUNC &&
                 node.returnValue != null) {
-            errors.add(new SemanticError(node.getLineNum(), "f"));
+            addError(node.getLineNum(), "f");
         }
+        Value value = null;
         if (node.returnValue != null) {
-            visit(node.returnValue);
+            value = visit(node.returnValue);
+        }
+        if (ir != null) {
+            ir.ret(value);
         }
     }
 
     public void visit(BreakStmt node) {
         if (loopDepth == 0) {
-            errors.add(new SemanticError(node.getLineNum(), "m"));
+            addError(node.getLineNum(), "m");
+        } else if (ir != null) {
+            ir.breakLoop();
         }
     }
 
     public void visit(ContinueStmt node) {
         if (loopDepth == 0) {
-            errors.add(new SemanticError(node.getLineNum(), "m"));
+            addError(node.getLineNum(), "m");
+        } else if (ir != null) {
+            ir.continueLoop();
         }
     }
 
@@ -350,13 +607,18 @@ public class SemanticVisitor {
         }
         int argsCount = (node.args != null) ? node.args.size() : 0;
         if (count != argsCount)  {
-            errors.add(new SemanticError(node.getLineNum(), "l"));
+            addError(node.getLineNum(), "l");
         }
+        List<Value> args = ir == null ? null : new ArrayList<>();
         if (node.args != null) {
             for (Expression arg : node.args) {
-                visit(arg);
+                Value argValue = visit(arg);
+                if (args != null) args.add(argValue);
             }
         }
+        if (ir != null) {
+            ir.printf(value, args);
+        }
     }
 
     public void visit(ExpStmt node) {
@@ -365,60 +627,71 @@ public class SemanticVisitor {
         }
     }
 
-    public void visit(Expression node) {
-        if (node == null)return;
-        if (node instanceof BinaryExp) {
-            visit((BinaryExp) node);
-        } else if (node instanceof UnaryExp) {
-            visit((UnaryExp) node);
-        } else if (node instanceof FuncCall) {
-            visit((FuncCall) node);
-        }
-        else if (node instanceof LVal) {
-            visit((LVal) node);
-        } else if (node instanceof NumberLiteral) {
-            visit((NumberLiteral) node);
+    public Value visit(Expression node) {
+        if (node == null)return null;
+        return node.accept(this);
+    }
+
+    public Value visit(BinaryExp node) {
+        TokenType op = node.op.type();
+        if (ir != null && (op == TokenType.AND || op == TokenType.OR)) {
+            // 短路求值：右边的代码生成在只有需要时才执行的块中
+            LLVMIRGenerator.Logical logical = ir.beginLogical(op, visit(node.left));
+            return ir.endLogical(logical, visit(node.right));
         }
+        Value left = visit(node.left);
+        Value right = visit(node.right);
+        return ir == null ? null : ir.binary(op, left, right);
     }
 
-    public void visit(BinaryExp node) {
-        visit(node.left);
-        visit(node.right);
+    public Value visit(UnaryExp node) {
+        Value operand = visit(node.operand);
+        return ir == null ? null : ir.unary(node.op.type(), operand);
     }
 
-    public void visit(UnaryExp node) {
-        visit(node.operand);
+    public Value visit(LVal node) {
+        resolve(node);
+        Value index = checkLVal(node);
+        return ir == null ? null : ir.load(node, index);
     }
 
-    public void visit(LVal node) {
-        Symbol symbol = symbolTable.lookupSymbol(node.ident.value());
-        if (symbol == null ) {
-            errors.add(new SemanticError(node.ident.lineNum(), "c"));
+    // 已经解析过的LVal：检查是否定义，再访问数组索引，返回下标的值
+    private Value checkLVal(LVal node) {
+        if (node.getSymbol() == null) {
+            addError(node.ident.lineNum(), "c");
         }
         if (node.exp != null) {
             //System.out.println(node.exp);
-            visit(node.exp);  // 检查数组索引表达式
+            return visit(node.exp);  // 检查数组索引表达式
         }
+        return null;
     }
 
-    public void visit(NumberLiteral node) {
+    public Value visit(NumberLiteral node) {
+        if (ir == null) {
+            return null;
+        }
+        Integer value = constEvaluator.evaluate(node); // 超出int范围的字面量已报错，按0处理
+        return ir.constant(value == null ? 0 : value);
     }
 
     // ==========================================================
 // == REPLACE your entire visit(FuncCall) method with this ==
 // ==========================================================
-    public void visit(FuncCall node) {
+    public Value visit(FuncCall node) {
+        List<Value> args = ir == null ? null : new ArrayList<>();
         if (node.args != null) {
             for (Expression arg : node.args) {
-                visit(arg);
+                Value value = visit(arg);
+                if (args != null) args.add(value);
             }
         }
         // Step 1: Look up the symbol ONCE.
-        Symbol symbol = symbolTable.lookupSymbol(node.ident.value());
+        Symbol symbol = resolve(node);
         //boolean flag = false;
         // Step 2: Validate that it's a defined function.
         if (symbol == null || !(symbol instanceof FuncSymbol)) {
-            errors.add(new SemanticError(node.getLineNum(), "c"));
+            addError(node.getLineNum(), "c");
             //flag = true;
             // Also, we must still visit the arguments to find errors inside them.
             // e.g., in undefined_func(another_func(1,2,3)), we need to find the error in another_func.
@@ -427,7 +700,7 @@ public class SemanticVisitor {
 //                    visit(arg);
 //                }
 //            }
-            return; // CRITICAL: Stop further processing for this call.
+            return null; // CRITICAL: Stop further processing for this call.
         }
 //        if (node.args != null) {
 //            for (Expression arg : node.args) {
@@ -444,9 +717,9 @@ public class SemanticVisitor {
         int expectedArgCount = (formalParams != null) ? formalParams.size() : 0;
 
         if (actualArgCount != expectedArgCount) {
-            errors.add(new SemanticError(node.getLineNum(), "d"));
+            addError(node.getLineNum(), "d");
 
-            return; // CRITICAL: Mismatched counts, so type checking is impossible. Stop.
+            return null; // CRITICAL: Mismatched counts, so type checking is impossible. Stop.
         }
 
         // Step 4: If we reach here, counts are correct. Validate argument types.
@@ -459,59 +732,70 @@ public class SemanticVisitor {
                 //visit(actualArg);
 
                 // Now, get types and compare.
-                String formalType = formalParam.getTypeName();
-                String actualType = getExpressionType(actualArg); // You need the helper method for this!
-                if (actualType.equals("Unknown")) {
+                SymbolType formalType = formalParam.getType();
+                SymbolType actualType = getExpressionType(actualArg); // You need the helper method for this!
+                if (actualType == null) {
                     break;  // 无法确定类型，停止类型检查
                 }
-                boolean isFormalArray = formalType.contains("Array");
-                boolean isActualArray = actualType.contains("Array");
 
-                if (isFormalArray != isActualArray) {
-                    errors.add(new SemanticError(node.getLineNum(), "e"));
+                if (formalType.isArray() != actualType.isArray()) {
+                    addError(node.getLineNum(), "e");
                     break;
                 }
             }
         }
+        return ir == null ? null : ir.call(funcSymbol, args);
     }
 
-    private String getExpressionType(Expression exp) {
-        if (exp == null) return "Unknown";
-        if (exp instanceof NumberLiteral) {
-            return "Int";
-        }
-        //新增
-        //visit(exp);
-        if (exp instanceof LVal) {
-            LVal lval = (LVal) exp;
-            Symbol symbol = symbolTable.lookupSymbol(lval.ident.value());
-            if (symbol instanceof ValueSymbol) {
-                ValueSymbol valueSymbol = (ValueSymbol) symbol;
-                boolean isSymbolArray = valueSymbol.getTypeName().contains("Array");
-                // If the symbol is an array BUT it's being accessed with an index (e.g., a[0]),
-                // the type of the EXPRESSION is Int.
-                if (isSymbolArray && lval.exp != null) {
-                    return "Int";
-                }
-                // Otherwise, the expression type is the same as the symbol type.
-                return valueSymbol.getTypeName();
+    // ----- 名字解析：每个LVal/FuncCall只查一次符号表，结果保存在节点上 -----
+
+    private Symbol resolve(LVal node) {
+        Symbol symbol = symbolTable.lookupSymbol(node.ident);
+        SymbolType type = null;
+        if (symbol instanceof ValueSymbol) {
+            // 带下标访问数组元素（如 a[0]）时是元素类型，否则与符号的类型相同
+            type = symbol.getType();
+            if (type.isArray() && node.exp != null) {
+                type = type.element();
             }
         }
-        if (exp instanceof FuncCall) {
-            FuncCall funcCall = (FuncCall) exp;
-            Symbol symbol = symbolTable.lookupSymbol(funcCall.ident.value());
-            if (symbol instanceof FuncSymbol) {
-                String funcType = ((FuncSymbol) symbol).getTypeName();
-                // The type of a function call expression is its return type.
-                return funcType.equals("VoidFunc") ? "Void" : "Int";
-            }
+        node.bind(symbol, type);
+        recordGlobalRef(node, symbol);
+        return symbol;
+    }
+
+    private Symbol resolve(FuncCall node) {
+        Symbol symbol = symbolTable.lookupSymbol(node.ident);
+        SymbolType type = null;
+        if (symbol instanceof FuncSymbol) {
+            // 调用表达式的类型是函数的返回值类型
+            type = symbol.getType().returnType();
         }
-        // For simplicity, assume all binary/unary operations result in an Int.
-        if (exp instanceof BinaryExp || exp instanceof UnaryExp) {
-            return "Int";
+        node.bind(symbol, type);
+        recordGlobalRef(node, symbol);
+        return symbol;
+    }
+
+    private void recordGlobalRef(Expression node, Symbol symbol) {
+        if (itemGlobalRefs != null && symbol != null && symbol.getScopeId() == globalScopeId) {
+            itemGlobalRefs.add(node);
         }
+    }
 
-        return "Unknown"; // Default case
+    // 表达式的类型，无法确定时返回null
+    private SymbolType getExpressionType(Expression exp) {
+        if (exp == null) return null;
+        return exp.accept(EXPRESSION_TYPE);
     }
 
+    // 实参在检查调用之前已经访问过，名字已解析，类型直接从节点上读取
+    private static final ExpressionVisitor<SymbolType> EXPRESSION_TYPE = new ExpressionVisitor<>() {
+        // For simplicity, assume all binary/unary operations result in an Int.
+        public SymbolType visit(BinaryExp node) { return SymbolType.INT; }
+        public SymbolType visit(UnaryExp node) { return SymbolType.INT; }
+        public SymbolType visit(LVal node) { return node.getType(); }
+        public SymbolType visit(FuncCall node) { return node.getType(); }
+        public SymbolType visit(NumberLiteral node) { return SymbolType.INT; }
+    };
+
 }
\ No newline at end of file